@@ -79,9 +79,75 @@ public class AirZoneBinding extends AirZoneBridgeConfiguration {
                 this.retries = uncheckedConfiguration.retries;
             }
             logger.trace("AirZoneBinding(): checking {}.", AirZoneBridgeConfiguration.BRIDGE_REFRESH_MSECS);
-            if ((uncheckedConfiguration.refreshMSecs >= 1000) && (uncheckedConfiguration.refreshMSecs <= 60000)) {
-                this.refreshMSecs = uncheckedConfiguration.refreshMSecs;
+            if ((uncheckedConfiguration.refreshMsecs >= 1000) && (uncheckedConfiguration.refreshMsecs <= 60000)) {
+                this.refreshMsecs = uncheckedConfiguration.refreshMsecs;
             }
+            logger.trace("AirZoneBinding(): checking {}.", AirZoneBridgeConfiguration.BRIDGE_FAILURE_THRESHOLD);
+            if ((uncheckedConfiguration.failureThreshold >= 1) && (uncheckedConfiguration.failureThreshold <= 20)) {
+                this.failureThreshold = uncheckedConfiguration.failureThreshold;
+            }
+            logger.trace("AirZoneBinding(): checking {}.", AirZoneBridgeConfiguration.BRIDGE_COMMAND_TIMEOUT_MSECS);
+            if ((uncheckedConfiguration.commandTimeoutMsecs >= 1000)
+                    && (uncheckedConfiguration.commandTimeoutMsecs <= 600000)) {
+                this.commandTimeoutMsecs = uncheckedConfiguration.commandTimeoutMsecs;
+            }
+            logger.trace("AirZoneBinding(): checking {}.", AirZoneBridgeConfiguration.BRIDGE_COMMAND_QUEUE_CAPACITY);
+            if ((uncheckedConfiguration.commandQueueCapacity >= 1)
+                    && (uncheckedConfiguration.commandQueueCapacity <= 1000)) {
+                this.commandQueueCapacity = uncheckedConfiguration.commandQueueCapacity;
+            }
+            logger.trace("AirZoneBinding(): checking {}.", AirZoneBridgeConfiguration.BRIDGE_COMMAND_QUEUE_OVERFLOW);
+            if (AirZoneBridgeConfiguration.COMMAND_QUEUE_OVERFLOW_DROP_OLDEST
+                    .equals(uncheckedConfiguration.commandQueueOverflow)
+                    || AirZoneBridgeConfiguration.COMMAND_QUEUE_OVERFLOW_REJECT
+                            .equals(uncheckedConfiguration.commandQueueOverflow)) {
+                this.commandQueueOverflow = uncheckedConfiguration.commandQueueOverflow;
+            }
+            logger.trace("AirZoneBinding(): checking {}.", AirZoneBridgeConfiguration.BRIDGE_FAST_REFRESH_MSECS);
+            if ((uncheckedConfiguration.fastRefreshMsecs >= 1000)
+                    && (uncheckedConfiguration.fastRefreshMsecs <= this.refreshMsecs)) {
+                this.fastRefreshMsecs = uncheckedConfiguration.fastRefreshMsecs;
+            } else {
+                if (uncheckedConfiguration.fastRefreshMsecs > this.refreshMsecs) {
+                    logger.info("AirZoneBinding(): {}={} is longer than {}={}, reduced to it.",
+                            AirZoneBridgeConfiguration.BRIDGE_FAST_REFRESH_MSECS,
+                            uncheckedConfiguration.fastRefreshMsecs, AirZoneBridgeConfiguration.BRIDGE_REFRESH_MSECS,
+                            this.refreshMsecs);
+                }
+                this.fastRefreshMsecs = Math.min(this.fastRefreshMsecs, this.refreshMsecs);
+            }
+            logger.trace("AirZoneBinding(): checking {}.", AirZoneBridgeConfiguration.BRIDGE_MAX_REFRESH_MSECS);
+            if ((uncheckedConfiguration.maxRefreshMsecs >= this.refreshMsecs)
+                    && (uncheckedConfiguration.maxRefreshMsecs <= 3600000)) {
+                this.maxRefreshMsecs = uncheckedConfiguration.maxRefreshMsecs;
+            } else {
+                this.maxRefreshMsecs = Math.max(this.maxRefreshMsecs, this.refreshMsecs);
+            }
+            logger.trace("AirZoneBinding(): checking {}.", AirZoneBridgeConfiguration.BRIDGE_SYSTEMS_REFRESH_MSECS);
+            if ((uncheckedConfiguration.systemsRefreshMsecs >= this.refreshMsecs)
+                    && (uncheckedConfiguration.systemsRefreshMsecs <= 3600000)) {
+                this.systemsRefreshMsecs = uncheckedConfiguration.systemsRefreshMsecs;
+            }
+            logger.trace("AirZoneBinding(): checking {}.", AirZoneBridgeConfiguration.BRIDGE_WEBSERVER_REFRESH_MSECS);
+            if ((uncheckedConfiguration.webServerRefreshMsecs >= this.refreshMsecs)
+                    && (uncheckedConfiguration.webServerRefreshMsecs <= 86400000)) {
+                this.webServerRefreshMsecs = uncheckedConfiguration.webServerRefreshMsecs;
+            }
+            logger.trace("AirZoneBinding(): checking {}.",
+                    AirZoneBridgeConfiguration.BRIDGE_SUPPRESS_REDUNDANT_COMMANDS);
+            this.suppressRedundantCommands = uncheckedConfiguration.suppressRedundantCommands;
+            logger.trace("AirZoneBinding(): checking {}.", AirZoneBridgeConfiguration.BRIDGE_SETPOINT_POLICY);
+            if (AirZoneBridgeConfiguration.SETPOINT_POLICY_CLAMP.equals(uncheckedConfiguration.setpointPolicy)
+                    || AirZoneBridgeConfiguration.SETPOINT_POLICY_REJECT.equals(uncheckedConfiguration.setpointPolicy)
+                    || AirZoneBridgeConfiguration.SETPOINT_POLICY_NONE.equals(uncheckedConfiguration.setpointPolicy)) {
+                this.setpointPolicy = uncheckedConfiguration.setpointPolicy;
+            }
+            logger.trace("AirZoneBinding(): checking {}.", AirZoneBridgeConfiguration.BRIDGE_OPTIMISTIC_UPDATES);
+            this.optimisticUpdates = uncheckedConfiguration.optimisticUpdates;
+            logger.trace("AirZoneBinding(): checking {}.", AirZoneBridgeConfiguration.BRIDGE_VIRTUAL_THREADS);
+            this.virtualThreads = uncheckedConfiguration.virtualThreads;
+            logger.trace("AirZoneBinding(): checking {}.", AirZoneBridgeConfiguration.BRIDGE_DIAGNOSTIC_CHANNELS);
+            this.diagnosticChannels = uncheckedConfiguration.diagnosticChannels;
 
         }
         logger.trace("AirZoneBinding(constructor) done.");
@@ -96,13 +162,26 @@ public class AirZoneBinding extends AirZoneBridgeConfiguration {
     public AirZoneBridgeConfiguration checked() {
         logger.trace("checked() called.");
         // @formatter:off
-        logger.debug("{}Config[{}={},{}={},{}={},{}={},{}={},{}={},{}={},{}={},{}={}]",
+        logger.debug("{}Config[{}={},{}={},{}={},{}={},{}={},{}={},{}={},{}={},{}={},{}={},{}={},{}={},{}={},{}={},{}={},{}={},{}={},{}={}]",
                 AirZoneBindingConstants.BINDING_ID,
                 AirZoneBridgeConfiguration.BRIDGE_IPADDRESS, this.ipAddress,
                 AirZoneBridgeConfiguration.BRIDGE_TCPPORT, tcpPort,
                 AirZoneBridgeConfiguration.BRIDGE_TIMEOUT_MSECS, timeoutMsecs,
                 AirZoneBridgeConfiguration.BRIDGE_RETRIES, retries,
-                AirZoneBridgeConfiguration.BRIDGE_REFRESH_MSECS, refreshMSecs);
+                AirZoneBridgeConfiguration.BRIDGE_REFRESH_MSECS, refreshMsecs,
+                AirZoneBridgeConfiguration.BRIDGE_FAILURE_THRESHOLD, failureThreshold,
+                AirZoneBridgeConfiguration.BRIDGE_COMMAND_TIMEOUT_MSECS, commandTimeoutMsecs,
+                AirZoneBridgeConfiguration.BRIDGE_COMMAND_QUEUE_CAPACITY, commandQueueCapacity,
+                AirZoneBridgeConfiguration.BRIDGE_COMMAND_QUEUE_OVERFLOW, commandQueueOverflow,
+                AirZoneBridgeConfiguration.BRIDGE_FAST_REFRESH_MSECS, fastRefreshMsecs,
+                AirZoneBridgeConfiguration.BRIDGE_MAX_REFRESH_MSECS, maxRefreshMsecs,
+                AirZoneBridgeConfiguration.BRIDGE_SYSTEMS_REFRESH_MSECS, systemsRefreshMsecs,
+                AirZoneBridgeConfiguration.BRIDGE_WEBSERVER_REFRESH_MSECS, webServerRefreshMsecs,
+                AirZoneBridgeConfiguration.BRIDGE_SUPPRESS_REDUNDANT_COMMANDS, suppressRedundantCommands,
+                AirZoneBridgeConfiguration.BRIDGE_SETPOINT_POLICY, setpointPolicy,
+                AirZoneBridgeConfiguration.BRIDGE_OPTIMISTIC_UPDATES, optimisticUpdates,
+                AirZoneBridgeConfiguration.BRIDGE_VIRTUAL_THREADS, virtualThreads,
+                AirZoneBridgeConfiguration.BRIDGE_DIAGNOSTIC_CHANNELS, diagnosticChannels);
         // @formatter:off
         logger.trace("checked() done.");
         return this;
@@ -14,6 +14,7 @@ package com.obones.binding.airzone.internal;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -91,6 +92,35 @@ public class AirZoneBindingConstants {
 
     // List of all bridge channel ids
 
+    /** Channel identifiers describing the command queue of the Bridge. */
+    public static final String CHANNEL_BRIDGE_QUEUE_DEPTH = "queue-depth";
+    public static final String CHANNEL_BRIDGE_QUEUE_AGE = "queue-age";
+
+    /** Channel identifiers describing the requests sent to the web server by the Bridge. */
+    public static final String CHANNEL_BRIDGE_REQUESTS = "requests";
+    public static final String CHANNEL_BRIDGE_REQUEST_ERRORS = "request-errors";
+    public static final String CHANNEL_BRIDGE_REQUEST_TIMEOUTS = "request-timeouts";
+    public static final String CHANNEL_BRIDGE_REQUESTS_BY_RESOURCE = "requests-by-resource";
+    public static final String CHANNEL_BRIDGE_ROUND_TRIP_P50 = "round-trip-p50";
+    public static final String CHANNEL_BRIDGE_ROUND_TRIP_P95 = "round-trip-p95";
+    public static final String CHANNEL_BRIDGE_ROUND_TRIP_P99 = "round-trip-p99";
+    public static final String CHANNEL_BRIDGE_PACING_WAIT = "pacing-wait";
+    public static final String CHANNEL_BRIDGE_POLL_DURATION = "poll-duration";
+    public static final String CHANNEL_BRIDGE_SNAPSHOT_AGE = "snapshot-age";
+
+    /** Channel identifier giving the latest exchanges with the web server, only updated on demand. */
+    public static final String CHANNEL_BRIDGE_RECENT_EXCHANGES = "recent-exchanges";
+
+    // dynamic bridge channel type ids, the other diagnostic channels have a type of the same name
+    public static final String CHANNEL_TYPE_BRIDGE_ROUND_TRIP = "round-trip";
+
+    /** Diagnostic channels of the Bridge, only created when its configuration asks for them. */
+    public static final List<String> CHANNEL_BRIDGE_DIAGNOSTICS = List.of(CHANNEL_BRIDGE_QUEUE_DEPTH,
+            CHANNEL_BRIDGE_QUEUE_AGE, CHANNEL_BRIDGE_REQUESTS, CHANNEL_BRIDGE_REQUEST_ERRORS,
+            CHANNEL_BRIDGE_REQUEST_TIMEOUTS, CHANNEL_BRIDGE_REQUESTS_BY_RESOURCE, CHANNEL_BRIDGE_ROUND_TRIP_P50,
+            CHANNEL_BRIDGE_ROUND_TRIP_P95, CHANNEL_BRIDGE_ROUND_TRIP_P99, CHANNEL_BRIDGE_PACING_WAIT,
+            CHANNEL_BRIDGE_POLL_DURATION, CHANNEL_BRIDGE_SNAPSHOT_AGE, CHANNEL_BRIDGE_RECENT_EXCHANGES);
+
     /** Channel/Property identifier describing the current Bridge State. */
     public static final String PROPERTY_BRIDGE_MAC = "mac";
     public static final String PROPERTY_BRIDGE_WIFI_CHANNEL = "wifiChannel";
@@ -100,6 +130,7 @@ public class AirZoneBindingConstants {
     public static final String PROPERTY_BRIDGE_FIRMWARE = "firmware";
     public static final String PROPERTY_BRIDGE_TYPE = "type";
     public static final String PROPERTY_BRIDGE_API_VERSION = "apiVersion";
+    public static final String PROPERTY_BRIDGE_TIME_TO_FIRST_STATE = "timeToFirstStateMsecs";
 
     // List of all zone channel/property ids
     public static final String CHANNEL_ZONE_NAME = "name";
@@ -77,7 +77,7 @@ public class AirZoneDynamicStateDescriptionProvider implements DynamicStateDescr
 
             @Nullable
             StateDescriptionFragmentBuilder builder = StateDescriptionFragmentBuilder.create(originalStateDescription);
-            builder = thingHandler.adjustChannelState(channelTypeUID, builder);
+            builder = thingHandler.adjustChannelState(channel.getUID(), channelTypeUID, builder);
             if (builder != null) {
                 StateDescription result = builder.build().toStateDescription();
                 return result;
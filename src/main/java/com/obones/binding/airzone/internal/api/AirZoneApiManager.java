@@ -14,22 +14,37 @@ package com.obones.binding.airzone.internal.api;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.measure.Unit;
+import javax.measure.quantity.Temperature;
 
-import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.io.net.http.HttpUtil;
 import org.openhab.core.library.types.DecimalType;
 import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.QuantityType;
 import org.openhab.core.library.types.StringType;
+import org.openhab.core.library.unit.ImperialUnits;
+import org.openhab.core.library.unit.SIUnits;
 import org.openhab.core.thing.Thing;
 import org.openhab.core.thing.binding.ThingHandler;
 import org.openhab.core.types.Command;
@@ -39,11 +54,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
 import com.obones.binding.airzone.internal.AirZoneBindingConstants;
+import com.obones.binding.airzone.internal.api.AirZoneApiStatistics.Outcome;
 import com.obones.binding.airzone.internal.api.model.*;
 import com.obones.binding.airzone.internal.config.AirZoneBridgeConfiguration;
 import com.obones.binding.airzone.internal.handler.AirZoneBaseZoneThingHandler;
+import com.obones.binding.airzone.internal.jfr.AirZoneFlightRecorder;
+import com.obones.binding.airzone.internal.jfr.AirZoneHttpExchangeEvent;
 
 /**
  * The {@link AirZoneApiManager} is responsible for the communication with the AirZone web server.
@@ -56,6 +79,11 @@ public class AirZoneApiManager {
     private @NonNullByDefault({}) final Logger logger = LoggerFactory.getLogger(AirZoneApiManager.class);
     private static final Gson gson = new Gson();
 
+    /**
+     * Fields that are written through the master zone but apply to all the zones of its system.
+     */
+    private static final Set<String> SYSTEM_WIDE_FIELDS = Set.of("mode");
+
     private class AirZoneHvacZoneMap extends HashMap<Integer, AirZoneHvacZone> {
         public static final long serialVersionUID = 1L;
 
@@ -79,15 +107,73 @@ public class AirZoneApiManager {
     @Nullable
     private AirZoneHvacSystemsResponse latestSystemsResponse = null;
     private Map<Integer, AirZoneHvacSystemInfo> latestSystems = new HashMap<>();
-    private AirZoneBridgeConfiguration airZoneBridgeConfiguration;
+    @Nullable
+    private AirZoneWebServerResponse latestServerProperties = null;
+    @Nullable
+    private String latestApiVersion = null;
+
+    // freshness of each resource, only updated on successful retrieval
+    private @Nullable Instant latestZonesTime = null;
+    private @Nullable Instant latestSystemsTime = null;
+    private @Nullable Instant latestServerPropertiesTime = null;
+    // time at which the snapshot restored at startup was saved, the zones and systems are stale until retrieved again
+    private @Nullable Instant restoredSnapshotTime = null;
+    private volatile AirZoneBridgeConfiguration airZoneBridgeConfiguration;
+    // delay planned between the latest poll and the next one, the zones it retrieved stand for the state until then
+    private volatile long pollIntervalMsecs = 0;
+
+    private final AirZoneFetchTimes fetchTimes = new AirZoneFetchTimes();
+    private final AtomicLong suppressedWriteCount = new AtomicLong();
+    private final AirZoneRequestSequence requestSequence = new AirZoneRequestSequence();
+    private final AirZoneCircuitBreaker circuitBreaker;
+    private final AirZonePacingGate pacingGate;
+    private final AirZoneApiStatistics statistics = new AirZoneApiStatistics();
+    private final AirZoneExchangeRecorder exchangeRecorder = new AirZoneExchangeRecorder();
+    // round trip time of the latest exchange, requests being sent one at a time
+    private volatile long latestRoundTripNanos = 0;
+    // set once the bridge is disposed, any request still in progress is then abandoned
+    private volatile boolean closed = false;
 
     @Activate
     public AirZoneApiManager(final @Reference AirZoneBridgeConfiguration givenAirZoneBridgeConfiguration) {
         airZoneBridgeConfiguration = givenAirZoneBridgeConfiguration;
+        circuitBreaker = new AirZoneCircuitBreaker(airZoneBridgeConfiguration.failureThreshold,
+                airZoneBridgeConfiguration.timeoutMsecs);
+        pacingGate = AirZonePacingGate.forWebServer(airZoneBridgeConfiguration.ipAddress,
+                airZoneBridgeConfiguration.tcpPort);
+    }
+
+    /**
+     * Applies new bridge configuration parameters while keeping the latest known state of the installation.
+     * The address of the web server is expected to be unchanged, a new manager must be used otherwise.
+     *
+     * @param newConfiguration the validated configuration
+     */
+    public void reconfigure(AirZoneBridgeConfiguration newConfiguration) {
+        airZoneBridgeConfiguration = newConfiguration;
+        circuitBreaker.retune(newConfiguration.failureThreshold, newConfiguration.timeoutMsecs);
+    }
+
+    /**
+     * Abandons all the requests, whether they are waiting for their turn or already sent to the web server.
+     * Requests fail with an {@link InterruptedIOException} from then on.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
     }
 
     public void fetchStatus() {
+        fetchZones();
+        fetchSystems();
+    }
+
+    public void fetchZones() {
         try {
+            long sequence = requestSequence.issue();
             String jsonResponse = executeHvacPostUrl("{\"systemID\":0,\"zoneID\":0}");
 
             if (jsonResponse != null) {
@@ -95,46 +181,392 @@ public class AirZoneApiManager {
                 logger.trace("io() cleaned response {}.", jsonResponse);
                 latestZonesResponse = gson.fromJson(jsonResponse, AirZoneHvacResponse.class);
 
-                fillLatestZones(latestZonesResponse);
+                statistics.recordStateUpdate(fillLatestZones(latestZonesResponse, sequence));
+                latestZonesTime = Instant.now();
+                AirZoneHvacResponse zonesResponse = latestZonesResponse;
+                if (zonesResponse != null) {
+                    for (AirZoneHvacSystem system : zonesResponse.getSystems()) {
+                        for (AirZoneHvacZone zone : system.getData()) {
+                            fetchTimes.systemFetched(zone.getSystemID());
+                        }
+                    }
+                }
+            }
+        } catch (IOException ioe) {
+            logger.warn("fetchZones: exception {}", ioe.toString());
+        }
+    }
+
+    /**
+     * Retrieves the zones of the given systems only. A single system is retrieved on its own, but several of them are
+     * retrieved with the request for all the zones, as every request is paced: the zones of the other systems are
+     * then left out.
+     * All the zones are retrieved if every known system is asked for, or if the zones were never retrieved so far.
+     *
+     * @param systemIds the identifiers of the systems to retrieve the zones of
+     */
+    public void fetchZones(Collection<Integer> systemIds) {
+        if ((latestZonesTime == null) || systemIds.containsAll(getKnownSystemIds())) {
+            fetchZones();
+            return;
+        }
+        if (systemIds.isEmpty()) {
+            return;
+        }
+
+        boolean single = (systemIds.size() == 1);
+        int requestedSystemId = single ? systemIds.iterator().next() : 0;
+        try {
+            long sequence = requestSequence.issue();
+            String jsonResponse = executeHvacPostUrl(
+                    String.format("{\"systemID\":%d,\"zoneID\":0}", requestedSystemId));
+            if (jsonResponse == null) {
+                return;
+            }
+
+            jsonResponse = jsonResponse.replaceAll("^.+,\n", "");
+            logger.trace("io() cleaned response {}.", jsonResponse);
+            long changedFields = 0;
+            if (single) {
+                changedFields += fillLatestZones(gson.fromJson(jsonResponse, AirZoneHvacSystem.class), sequence);
+                fetchTimes.systemFetched(requestedSystemId);
+            } else {
+                AirZoneHvacResponse response = gson.fromJson(jsonResponse, AirZoneHvacResponse.class);
+                if (response != null) {
+                    for (AirZoneHvacSystem system : response.getSystems()) {
+                        AirZoneHvacZone[] zones = system.getData();
+                        if ((zones.length > 0) && systemIds.contains(zones[0].getSystemID())) {
+                            changedFields += fillLatestZones(system, sequence);
+                            fetchTimes.systemFetched(zones[0].getSystemID());
+                        }
+                    }
+                }
+            }
+            statistics.recordStateUpdate(changedFields);
+            // this only tells that the polled systems are up to date, the others keep their own fetch time
+            latestZonesTime = Instant.now();
+        } catch (IOException ioe) {
+            logger.warn("fetchZones: systems {} - exception {}", systemIds, ioe.toString());
+        }
+    }
+
+    /**
+     * Retrieves a single zone and merges it into the latest known zones.
+     *
+     * @param systemId the identifier of the system the zone belongs to
+     * @param zoneId the identifier of the zone, 0 to retrieve all the zones of the system
+     */
+    public void fetchZone(int systemId, int zoneId) {
+        if (zoneId == 0) {
+            fetchZones(List.of(systemId));
+            return;
+        }
+
+        try {
+            long sequence = requestSequence.issue();
+            String jsonResponse = executeHvacPostUrl(
+                    String.format("{\"systemID\":%d,\"zoneID\":%d}", systemId, zoneId));
+
+            if (jsonResponse != null) {
+                jsonResponse = jsonResponse.replaceAll("^.+,\n", "");
+                logger.trace("io() cleaned response {}.", jsonResponse);
+                statistics.recordStateUpdate(
+                        fillLatestZones(gson.fromJson(jsonResponse, AirZoneHvacSystem.class), sequence));
             }
+        } catch (IOException ioe) {
+            logger.warn("fetchZone: {} - {} - exception {}", systemId, zoneId, ioe.toString());
+        }
+    }
+
+    private Set<Integer> getKnownSystemIds() {
+        Set<Integer> systemIds = new HashSet<>();
+        for (AirZoneHvacZone zone : latestZones.values()) {
+            systemIds.add(zone.getSystemID());
+        }
+        return systemIds;
+    }
 
-            jsonResponse = executeHvacPostUrl("{\"systemID\":127}");
+    public void fetchSystems() {
+        try {
+            String jsonResponse = executeHvacPostUrl("{\"systemID\":127}");
             if (jsonResponse != null) {
                 jsonResponse = jsonResponse.replaceAll("^.+,\n", "");
                 latestSystemsResponse = gson.fromJson(jsonResponse, AirZoneHvacSystemsResponse.class);
 
                 fillLatestSystems(latestSystemsResponse);
+                latestSystemsTime = Instant.now();
             }
         } catch (IOException ioe) {
-            logger.warn("fetchStatus: exception {}", ioe.toString());
+            logger.warn("fetchSystems: exception {}", ioe.toString());
         }
     }
 
-    public @Nullable AirZoneHvacResponse getLatestZonesResponse() {
-        if (latestZonesResponse == null)
-            fetchStatus();
+    public void fetchServerProperties() {
+        AirZoneWebServerResponse serverProperties = getServerProperties();
+        if (serverProperties != null) {
+            latestServerProperties = serverProperties;
+            latestServerPropertiesTime = Instant.now();
+        }
+
+        String apiVersion = getApiVersion();
+        if (apiVersion != null) {
+            latestApiVersion = apiVersion;
+        }
+    }
+
+    /**
+     * Indicates if the zones were successfully retrieved less than the given age ago.
+     *
+     * @param maxAgeMsecs the maximum age, in milliseconds
+     * @return true if the zones are fresh enough
+     */
+    public boolean areZonesFresh(long maxAgeMsecs) {
+        return isFresh(latestZonesTime, maxAgeMsecs);
+    }
+
+    /**
+     * Indicates if the systems were successfully retrieved less than the given age ago.
+     *
+     * @param maxAgeMsecs the maximum age, in milliseconds
+     * @return true if the systems are fresh enough
+     */
+    public boolean areSystemsFresh(long maxAgeMsecs) {
+        return isFresh(latestSystemsTime, maxAgeMsecs);
+    }
+
+    /**
+     * Indicates if the web server properties were successfully retrieved less than the given age ago.
+     *
+     * @param maxAgeMsecs the maximum age, in milliseconds
+     * @return true if the web server properties are fresh enough
+     */
+    public boolean areServerPropertiesFresh(long maxAgeMsecs) {
+        return isFresh(latestServerPropertiesTime, maxAgeMsecs);
+    }
+
+    /**
+     * Indicates if the latest known zones come from a snapshot saved before a restart and were not retrieved from
+     * the web server since.
+     *
+     * @return true if the zones are stale
+     */
+    public boolean isSnapshotStale() {
+        return (restoredSnapshotTime != null) && (latestZonesTime == null);
+    }
+
+    /**
+     * Indicates if the latest known zones of a system were retrieved from the web server recently enough to be
+     * trusted as the current state of the installation, which the zones restored from a snapshot never are.
+     *
+     * @param systemId the identifier of the system
+     * @return true if the zones of the system were retrieved during the current poll interval, or during the fast
+     *         refresh interval if it is longer
+     */
+    public boolean isSystemStateFresh(int systemId) {
+        long maxAgeMsecs = Math.max(airZoneBridgeConfiguration.fastRefreshMsecs, pollIntervalMsecs);
+        return !isSnapshotStale() && fetchTimes.isSystemFresh(systemId, maxAgeMsecs);
+    }
+
+    /**
+     * Tells how long the zones retrieved by the latest poll stand for the state of the installation, that is the delay
+     * until the next poll.
+     *
+     * @param pollIntervalMsecs the delay before the next poll, in milliseconds
+     */
+    public void setPollIntervalMsecs(long pollIntervalMsecs) {
+        this.pollIntervalMsecs = pollIntervalMsecs;
+    }
+
+    public @Nullable Instant getRestoredSnapshotTime() {
+        return restoredSnapshotTime;
+    }
+
+    /**
+     * Exports the latest known zones and systems so that they can be restored after a restart.
+     *
+     * @return the snapshot as JSON, null if the zones were never retrieved from the web server
+     */
+    public @Nullable String exportSnapshot() {
+        if (latestZonesTime == null) {
+            return null;
+        }
+
+        Map<Integer, JsonArray> zonesBySystem = new TreeMap<>();
+        for (AirZoneHvacZone zone : latestZones.values()) {
+            zonesBySystem.computeIfAbsent(zone.getSystemID(), systemId -> new JsonArray())
+                    .add(gson.toJsonTree(zone));
+        }
+        JsonArray systems = new JsonArray();
+        for (JsonArray zones : zonesBySystem.values()) {
+            JsonObject system = new JsonObject();
+            system.add("data", zones);
+            systems.add(system);
+        }
+        JsonObject zonesResponse = new JsonObject();
+        zonesResponse.add("systems", systems);
+
+        JsonObject snapshot = new JsonObject();
+        snapshot.add("zones", zonesResponse);
+        snapshot.add("systems", gson.toJsonTree(latestSystemsResponse));
+        return gson.toJson(snapshot);
+    }
+
+    /**
+     * Restores the zones and systems exported by {@link #exportSnapshot}, they are considered stale until they are
+     * retrieved from the web server. Nothing is restored if some zones were already retrieved.
+     *
+     * @param json the snapshot as JSON
+     * @param savedAt the time at which the snapshot was saved
+     * @return true if the snapshot was restored
+     */
+    public boolean importSnapshot(String json, Instant savedAt) {
+        if (latestZonesTime != null) {
+            return false;
+        }
+
+        AirZoneSnapshot snapshot;
+        try {
+            snapshot = gson.fromJson(json, AirZoneSnapshot.class);
+        } catch (JsonParseException e) {
+            logger.warn("importSnapshot: invalid snapshot {}", e.toString());
+            return false;
+        }
+        if ((snapshot == null) || (snapshot.getZones() == null)) {
+            return false;
+        }
+
+        latestZonesResponse = snapshot.getZones();
+        fillLatestZones(latestZonesResponse, 0);
+        latestSystemsResponse = snapshot.getSystems();
+        fillLatestSystems(latestSystemsResponse);
+        restoredSnapshotTime = savedAt;
+        return true;
+    }
+
+    public boolean hasZones() {
+        return latestZonesTime != null;
+    }
+
+    public boolean hasSystems() {
+        return latestSystemsTime != null;
+    }
+
+    private static boolean isFresh(@Nullable Instant time, long maxAgeMsecs) {
+        return (time != null) && time.plusMillis(maxAgeMsecs).isAfter(Instant.now());
+    }
+
+    /**
+     * Indicates if the web server is considered unresponsive, in which case requests fail right away.
+     *
+     * @return true if the circuit breaker is open
+     */
+    public boolean isCircuitOpen() {
+        return circuitBreaker.isOpen();
+    }
+
+    /**
+     * Returns the delay before the next probe of an unresponsive web server, doubling it for the following one.
+     *
+     * @return the delay in milliseconds
+     */
+    public long getNextProbeDelayMsecs() {
+        return circuitBreaker.getNextProbeDelayMsecs();
+    }
+
+    /**
+     * Checks if the web server responds with a cheap request, even if the circuit breaker is open.
+     *
+     * @return true if the web server responded, which closes the circuit breaker
+     */
+    public boolean probe() {
+        try {
+            return executeUrl("POST", "version", "", RequestKind.CIRCUIT_PROBE) != null;
+        } catch (IOException ioe) {
+            logger.debug("probe: exception {}", ioe.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Sends a read-only request to measure the round trip time of the web server, the time spent waiting for the
+     * pacing gate being excluded. The request is recorded in the statistics apart from the regular ones.
+     *
+     * @param resourceName the resource to query, either "version" or "hvac"
+     * @return the round trip time in nanoseconds
+     * @throws IOException if the web server did not answer
+     */
+    public long measureRoundTrip(String resourceName) throws IOException {
+        String requestContent = "hvac".equals(resourceName) ? "{\"systemID\":0,\"zoneID\":0}" : "";
+        if (executeUrl("POST", resourceName, requestContent, RequestKind.LATENCY_PROBE) == null) {
+            throw new IOException("no response to " + resourceName + " request");
+        }
+        return latestRoundTripNanos;
+    }
+
+    public AirZoneApiStatistics getStatistics() {
+        return statistics;
+    }
+
+    public AirZoneExchangeRecorder getExchangeRecorder() {
+        return exchangeRecorder;
+    }
+
+    /**
+     * Returns the age of the latest known zones, whether retrieved from the web server or restored from a snapshot.
+     *
+     * @return the age in milliseconds, -1 if no zone is known
+     */
+    public long getZonesAgeMsecs() {
+        Instant time = (latestZonesTime != null) ? latestZonesTime : restoredSnapshotTime;
+        if (time == null) {
+            return -1;
+        }
+        return Math.max(0, ChronoUnit.MILLIS.between(time, Instant.now()));
+    }
+
+    public AirZoneRequestSequence getRequestSequence() {
+        return requestSequence;
+    }
+
+    /**
+     * Returns the number of commands that were not sent because the zone already had the requested value.
+     *
+     * @return the number of suppressed writes
+     */
+    public long getSuppressedWriteCount() {
+        return suppressedWriteCount.get();
+    }
+
+    public @Nullable AirZoneWebServerResponse getLatestServerProperties() {
+        return latestServerProperties;
+    }
 
+    public @Nullable String getLatestApiVersion() {
+        return latestApiVersion;
+    }
+
+    /*
+     * The getters below only return what is already known, they never wait for the web server: the bridge retrieves
+     * the state of the installation on its own thread and the things adapt to it as soon as it is known.
+     */
+
+    public @Nullable AirZoneHvacResponse getLatestZonesResponse() {
         return latestZonesResponse;
     }
 
     public @Nullable AirZoneHvacSystemsResponse getLatestSystemsResponse() {
-        if (latestSystemsResponse == null)
-            fetchStatus();
-
         return latestSystemsResponse;
     }
 
     public @Nullable AirZoneHvacZone getZone(int systemId, int zoneId) {
-        if (latestZonesResponse == null)
-            fetchStatus();
-
         return latestZones.get(systemId, zoneId);
     }
 
-    public @Nullable AirZoneHvacZone getMasterZone(int systemId) {
-        if (latestZonesResponse == null)
-            fetchStatus();
+    public Collection<AirZoneHvacZone> getZones() {
+        return List.copyOf(latestZones.values());
+    }
 
+    public @Nullable AirZoneHvacZone getMasterZone(int systemId) {
         for (var zone : latestZones.values()) {
             if ((zone.getSystemID() == systemId) && getIsMasterZone(zone))
                 return zone;
@@ -168,9 +600,6 @@ public class AirZoneApiManager {
     }
 
     public @Nullable AirZoneHvacSystemInfo getSystem(int systemId) {
-        if (latestZonesResponse == null)
-            fetchStatus();
-
         return latestSystems.get(systemId);
     }
 
@@ -215,27 +644,27 @@ public class AirZoneApiManager {
         }
     }
 
-    public void setZoneOnOff(Thing thing, Command command) {
-        setChannelValue(thing, "on", command);
+    public boolean setZoneOnOff(Thing thing, Command command) {
+        return setChannelValue(thing, "on", command);
     }
 
-    public void setZoneSetPoint(Thing thing, Command command) {
-        setChannelValue(thing, "setpoint", command);
+    public boolean setZoneSetPoint(Thing thing, Command command) {
+        return setZoneSetPoint(thing, "setpoint", command);
     }
 
-    public void setZoneCoolSetPoint(Thing thing, Command command) {
-        setChannelValue(thing, "coolsetpoint", command);
+    public boolean setZoneCoolSetPoint(Thing thing, Command command) {
+        return setZoneSetPoint(thing, "coolsetpoint", command);
     }
 
-    public void setZoneHeatSetPoint(Thing thing, Command command) {
-        setChannelValue(thing, "heatsetpoint", command);
+    public boolean setZoneHeatSetPoint(Thing thing, Command command) {
+        return setZoneSetPoint(thing, "heatsetpoint", command);
     }
 
-    public void setZoneName(Thing thing, Command command) {
-        setChannelValue(thing, "name", command);
+    public boolean setZoneName(Thing thing, Command command) {
+        return setChannelValue(thing, "name", command);
     }
 
-    public void setZoneMode(Thing thing, Command command) {
+    public boolean setZoneMode(Thing thing, Command command) {
         if (command instanceof StringType) {
             AirZoneHvacZone zone = getZone(thing);
             if (zone != null) {
@@ -245,7 +674,7 @@ public class AirZoneApiManager {
                     int[] allowedModes = zone.getModes();
                     Arrays.sort(allowedModes);
                     if (Arrays.binarySearch(allowedModes, value) >= 0) {
-                        setChannelValue(thing, "mode", new DecimalType(value));
+                        return setChannelValue(thing, "mode", new DecimalType(value));
                     } else {
                         logger.warn("Unsupported mode {} for zone {}, allowed modes are {}", value, thing.getUID(),
                                 allowedModes);
@@ -257,9 +686,10 @@ public class AirZoneApiManager {
         } else {
             logger.warn("Only StringType command is supported on zone mode, received {}", command.getClass().getName());
         }
+        return false;
     }
 
-    public void setZoneSpeed(Thing thing, Command command) {
+    public boolean setZoneSpeed(Thing thing, Command command) {
         if (command instanceof DecimalType) {
             AirZoneHvacZone zone = getZone(thing);
             if (zone != null) {
@@ -267,7 +697,7 @@ public class AirZoneApiManager {
                 int[] allowedSpeeds = zone.getSpeeds();
                 Arrays.sort(allowedSpeeds);
                 if (Arrays.binarySearch(allowedSpeeds, value) >= 0) {
-                    setChannelValue(thing, "speed", command);
+                    return setChannelValue(thing, "speed", command);
                 } else {
                     logger.warn("Unsupported speed {} for zone {}, allowed speeds are {}", value, thing.getUID(),
                             allowedSpeeds);
@@ -279,24 +709,25 @@ public class AirZoneApiManager {
             logger.warn("Only DecimalType command is supported on zone speed, received {}",
                     command.getClass().getName());
         }
+        return false;
     }
 
-    public void setZoneColdStage(Thing thing, Command command) {
-        setZoneStage(thing, command, "cold");
+    public boolean setZoneColdStage(Thing thing, Command command) {
+        return setZoneStage(thing, command, "cold");
     }
 
-    public void setZoneHeatStage(Thing thing, Command command) {
-        setZoneStage(thing, command, "heat");
+    public boolean setZoneHeatStage(Thing thing, Command command) {
+        return setZoneStage(thing, command, "heat");
     }
 
-    public void setZoneSleep(Thing thing, Command command) {
+    public boolean setZoneSleep(Thing thing, Command command) {
         if (command instanceof StringType) {
             AirZoneHvacZone zone = getZone(thing);
             if (zone != null) {
                 @Nullable
                 Integer value = AirZoneBindingConstants.ZoneSleepToInt.get(((StringType) command).toString());
                 if (value != null) {
-                    setChannelValue(thing, "sleep", new DecimalType(value));
+                    return setChannelValue(thing, "sleep", new DecimalType(value));
                 }
             } else {
                 logger.warn("No zone values for {}", thing.getUID());
@@ -304,16 +735,17 @@ public class AirZoneApiManager {
         } else {
             logger.warn("Only StringType command is supported on zone mode, received {}", command.getClass().getName());
         }
+        return false;
     }
 
-    public void setZoneAirQualityMode(Thing thing, Command command) {
+    public boolean setZoneAirQualityMode(Thing thing, Command command) {
         if (command instanceof StringType) {
             AirZoneHvacZone zone = getZone(thing);
             if (zone != null) {
                 @Nullable
                 Integer value = AirZoneBindingConstants.ZoneAirQualityModeToInt.get(((StringType) command).toString());
                 if (value != null) {
-                    setChannelValue(thing, "aq_mode", new DecimalType(value));
+                    return setChannelValue(thing, "aq_mode", new DecimalType(value));
                 }
             } else {
                 logger.warn("No zone values for {}", thing.getUID());
@@ -322,40 +754,41 @@ public class AirZoneApiManager {
             logger.warn("Only StringType command is supported on zone air quality mode, received {}",
                     command.getClass().getName());
         }
+        return false;
     }
 
-    public void setZoneAirQualityLowThreshold(Thing thing, Command command) {
-        setChannelValue(thing, "aq_thrlow", command);
+    public boolean setZoneAirQualityLowThreshold(Thing thing, Command command) {
+        return setChannelValue(thing, "aq_thrlow", command);
     }
 
-    public void setZoneAirQualityHighThreshold(Thing thing, Command command) {
-        setChannelValue(thing, "aq_thrhigh", command);
+    public boolean setZoneAirQualityHighThreshold(Thing thing, Command command) {
+        return setChannelValue(thing, "aq_thrhigh", command);
     }
 
-    public void setZoneVerticalSlatsSwing(Thing thing, Command command) {
-        setChannelValue(thing, "slats_vswing", command);
+    public boolean setZoneVerticalSlatsSwing(Thing thing, Command command) {
+        return setChannelValue(thing, "slats_vswing", command);
     }
 
-    public void setZoneHorizontalSlatsSwing(Thing thing, Command command) {
-        setChannelValue(thing, "slats_hswing", command);
+    public boolean setZoneHorizontalSlatsSwing(Thing thing, Command command) {
+        return setChannelValue(thing, "slats_hswing", command);
     }
 
-    public void setZoneVerticalSlatsPosition(Thing thing, Command command) {
-        setChannelValue(thing, "slats_vertical", command);
+    public boolean setZoneVerticalSlatsPosition(Thing thing, Command command) {
+        return setChannelValue(thing, "slats_vertical", command);
     }
 
-    public void setZoneHorizontalSlatsPosition(Thing thing, Command command) {
-        setChannelValue(thing, "slats_horizontal", command);
+    public boolean setZoneHorizontalSlatsPosition(Thing thing, Command command) {
+        return setChannelValue(thing, "slats_horizontal", command);
     }
 
-    public void setEcoAdapt(Thing thing, Command command) {
+    public boolean setEcoAdapt(Thing thing, Command command) {
         if (command instanceof StringType) {
             AirZoneHvacZone zone = getZone(thing);
             if (zone != null) {
                 @Nullable
                 String value = AirZoneBindingConstants.EcoAdaptToString.get(((StringType) command).toString());
                 if (value != null) {
-                    setChannelValue(thing, "eco_adapt", new StringType(value));
+                    return setChannelValue(thing, "eco_adapt", new StringType(value));
                 }
             } else {
                 logger.warn("No zone values for {}", thing.getUID());
@@ -364,13 +797,109 @@ public class AirZoneApiManager {
             logger.warn("Only StringType command is supported on zone eco adapt, received {}",
                     command.getClass().getName());
         }
+        return false;
+    }
+
+    public boolean setAntiFreeze(Thing thing, Command command) {
+        return setChannelValue(thing, "antifreeze", command);
+    }
+
+    private boolean setZoneSetPoint(Thing thing, String fieldName, Command command) {
+        if (!(command instanceof Number)
+                || AirZoneBridgeConfiguration.SETPOINT_POLICY_NONE.equals(airZoneBridgeConfiguration.setpointPolicy)) {
+            return setChannelValue(thing, fieldName, command);
+        }
+
+        AirZoneHvacZone zone = getZone(thing);
+        if (zone == null) {
+            logger.warn("No zone values for {}", thing.getUID());
+            return false;
+        }
+
+        @Nullable
+        Double value = getSetpointWireValue(command, zone, fieldName, airZoneBridgeConfiguration.setpointPolicy);
+        if (value == null) {
+            logger.warn("Unsupported {} {} for zone {}, allowed range is {} to {}", fieldName, command,
+                    thing.getUID(), getSetpointMinimum(zone, fieldName), getSetpointMaximum(zone, fieldName));
+            return false;
+        }
+        logger.debug("setZoneSetPoint: {} {} for zone {} sent as {}", fieldName, command, thing.getUID(), value);
+
+        return setChannelValue(thing, fieldName, new DecimalType(value));
+    }
+
+    /**
+     * Converts a setpoint command to the value sent to the web server: the temperature is converted to the unit of
+     * the zone and rounded to its step, then a value outside of the range of the setpoint is either clamped to it or
+     * rejected, as the policy tells.
+     *
+     * @param command the setpoint command
+     * @param zone the latest known state of the zone
+     * @param fieldName the setpoint field, one of setpoint, coolsetpoint and heatsetpoint
+     * @param setpointPolicy the policy, one of the {@code SETPOINT_POLICY_} constants of
+     *            {@link AirZoneBridgeConfiguration}
+     * @return the value in the unit of the zone, null if it is out of range and the policy rejects it
+     */
+    public static @Nullable Double getSetpointWireValue(Command command, AirZoneHvacZone zone, String fieldName,
+            String setpointPolicy) {
+        double value = getWireValue(command, zone).getAsDouble();
+        if (AirZoneBridgeConfiguration.SETPOINT_POLICY_NONE.equals(setpointPolicy)) {
+            return value;
+        }
+
+        double step = zone.getTempStep();
+        if (step > 0) {
+            value = BigDecimal.valueOf(step).multiply(BigDecimal.valueOf(Math.round(value / step))).doubleValue();
+        }
+
+        double minimum = getSetpointMinimum(zone, fieldName);
+        double maximum = getSetpointMaximum(zone, fieldName);
+        if ((maximum > minimum) && ((value < minimum) || (value > maximum))) {
+            if (AirZoneBridgeConfiguration.SETPOINT_POLICY_REJECT.equals(setpointPolicy)) {
+                return null;
+            }
+            value = Math.max(minimum, Math.min(maximum, value));
+        }
+        return value;
+    }
+
+    /**
+     * Returns the lowest value accepted by the zone for the given setpoint, in the unit of the zone.
+     *
+     * @param zone the zone
+     * @param fieldName the setpoint field, one of setpoint, coolsetpoint and heatsetpoint
+     * @return the minimum, which is not above the maximum if the zone does not give its limits
+     */
+    public static double getSetpointMinimum(AirZoneHvacZone zone, String fieldName) {
+        switch (fieldName) {
+            case "coolsetpoint":
+                return zone.getCoolMinTemp();
+            case "heatsetpoint":
+                return zone.getHeatMinTemp();
+            default:
+                return zone.getMinTemp();
+        }
     }
 
-    public void setAntiFreeze(Thing thing, Command command) {
-        setChannelValue(thing, "antifreeze", command);
+    /**
+     * Returns the highest value accepted by the zone for the given setpoint, in the unit of the zone.
+     *
+     * @param zone the zone
+     * @param fieldName the setpoint field, one of setpoint, coolsetpoint and heatsetpoint
+     * @return the maximum, which is not above the minimum if the zone does not give its limits
+     */
+    public static double getSetpointMaximum(AirZoneHvacZone zone, String fieldName) {
+        switch (fieldName) {
+            case "coolsetpoint":
+                return zone.getCoolMaxTemp();
+            case "heatsetpoint":
+                return zone.getHeatMaxTemp();
+            default:
+                return zone.getMaxTemp();
+        }
     }
 
-    private void setZoneStage(Thing thing, Command command, String prefix) {
+    private boolean setZoneStage(Thing thing, Command command, String prefix) {
         if (command instanceof StringType) {
             AirZoneHvacZone zone = getZone(thing);
             if (zone != null) {
@@ -379,7 +908,7 @@ public class AirZoneApiManager {
                 Integer value = AirZoneBindingConstants.ZoneStageToInt.get(((StringType) command).toString());
                 if (value != null) {
                     if (value == allowedStages) {
-                        setChannelValue(thing, prefix + "stage", new DecimalType(value));
+                        return setChannelValue(thing, prefix + "stage", new DecimalType(value));
                     } else {
                         logger.warn("Unsupported {} stage {} for zone {}, allowed stages are {}", prefix, value,
                                 thing.getUID(), allowedStages);
@@ -392,16 +921,58 @@ public class AirZoneApiManager {
             logger.warn("Only StringType command is supported on zone stage, received {}",
                     command.getClass().getName());
         }
+        return false;
     }
 
-    private void fillLatestZones(@Nullable AirZoneHvacResponse latestResponse) {
+    private long fillLatestZones(@Nullable AirZoneHvacResponse latestResponse, long sequence) {
+        long changedFields = 0;
         if (latestResponse != null) {
             for (AirZoneHvacSystem system : latestResponse.getSystems()) {
-                for (AirZoneHvacZone zone : system.getData()) {
-                    latestZones.put(zone.getSystemID(), zone.getZoneID(), zone);
+                changedFields += fillLatestZones(system, sequence);
+            }
+        }
+        return changedFields;
+    }
+
+    private long fillLatestZones(@Nullable AirZoneHvacSystem system, long sequence) {
+        long changedFields = 0;
+        boolean counting = statistics.isStateUpdateListened();
+        if (system != null) {
+            for (AirZoneHvacZone zone : system.getData()) {
+                zone.setSequence(sequence);
+                if (counting) {
+                    changedFields += countChangedFields(latestZones.get(zone.getSystemID(), zone.getZoneID()),
+                            gson.toJsonTree(zone).getAsJsonObject());
                 }
+                latestZones.put(zone.getSystemID(), zone.getZoneID(), zone);
+            }
+        }
+        return changedFields;
+    }
+
+    /**
+     * Counts the fields of a zone that differ from the ones of its previous state, only called when the statistics
+     * have a listener for it.
+     *
+     * @param previousZone the previous state of the zone, null if it was unknown so far
+     * @param zoneFields the fields of the new state of the zone
+     * @return the number of fields added, removed or given another value
+     */
+    private static int countChangedFields(@Nullable AirZoneHvacZone previousZone, JsonObject zoneFields) {
+        if (previousZone == null) {
+            return zoneFields.size();
+        }
+
+        JsonObject previousFields = gson.toJsonTree(previousZone).getAsJsonObject();
+        Set<String> names = new HashSet<>(previousFields.keySet());
+        names.addAll(zoneFields.keySet());
+        int changedFields = 0;
+        for (String name : names) {
+            if (!Objects.equals(previousFields.get(name), zoneFields.get(name))) {
+                changedFields++;
             }
         }
+        return changedFields;
     }
 
     private void fillLatestSystems(@Nullable AirZoneHvacSystemsResponse latestSystemsResponse) {
@@ -415,36 +986,167 @@ public class AirZoneApiManager {
         }
     }
 
-    private void setChannelValue(Thing thing, String fieldName, Command command) {
+    /**
+     * Sends the value of a field of a zone to the web server, unless the zone is known to have it already.
+     *
+     * @param thing the thing of the zone
+     * @param fieldName the name of the field
+     * @param command the command giving the value
+     * @return true if a PUT request was sent, even if it failed
+     */
+    private boolean setChannelValue(Thing thing, String fieldName, Command command) {
         ThingHandler thingHandler = thing.getHandler();
         if (!(thingHandler instanceof AirZoneBaseZoneThingHandler))
-            return;
+            return false;
 
         AirZoneHvacZonePutRequestParameters putRequestParameters = ((AirZoneBaseZoneThingHandler) thingHandler)
                 .getPutRequestParameters();
 
+        AirZoneHvacZone zone = getZone(thing);
+        JsonPrimitive value = getWireValue(command, zone);
+
+        // a command to all zones (zoneID 0) may change zones that do not have the value of the master zone, and a
+        // value that may have been changed on the wall panel since it was retrieved must be sent anyway
+        if (airZoneBridgeConfiguration.suppressRedundantCommands && (zone != null)
+                && (putRequestParameters.getZoneID() != 0)
+                && isSystemStateFresh(putRequestParameters.getSystemID())
+                && isCurrentValue(zone, fieldName, value)) {
+            suppressedWriteCount.incrementAndGet();
+            logger.debug("setChannelValue: {} is already {} for {}, nothing sent", fieldName, value, thing.getUID());
+            return false;
+        }
+
         JsonElement json = gson.toJsonTree(new Object());
         json.getAsJsonObject().addProperty("systemID", putRequestParameters.getSystemID());
         json.getAsJsonObject().addProperty("zoneID", putRequestParameters.getZoneID());
-
-        if (command instanceof Number) {
-            json.getAsJsonObject().addProperty(fieldName, ((Number) command).doubleValue());
-        } else if (command instanceof OnOffType) {
-            json.getAsJsonObject().addProperty(fieldName, (command == OnOffType.ON) ? 1 : 0);
-        } else {
-            json.getAsJsonObject().addProperty(fieldName, command.toString());
-        }
+        json.getAsJsonObject().add(fieldName, value);
 
         String content = gson.toJson(json);
+        String jsonResponse = null;
+        long sequence = requestSequence.issue();
         if (content != null) {
             try {
-                executeHvacPutUrl(content);
+                jsonResponse = executeHvacPutUrl(content);
             } catch (IOException ioe) {
                 logger.warn("setChannelValue: {} - exception {}", fieldName, ioe.toString());
             }
         }
 
-        fetchStatus();
+        // only read back the zone if the response does not tell us its new value, but a field that applies to the
+        // whole system changes the other zones as well, which the response does not tell
+        boolean merged = (putRequestParameters.getZoneID() != 0) && mergePutResponse(jsonResponse, fieldName, sequence);
+        if (SYSTEM_WIDE_FIELDS.contains(fieldName)) {
+            fetchZones(List.of(putRequestParameters.getSystemID()));
+        } else if (!merged) {
+            fetchZone(putRequestParameters.getSystemID(), putRequestParameters.getZoneID());
+        }
+        return content != null;
+    }
+
+    /**
+     * Converts a command to the value sent to the web server. Temperatures are converted to the unit of the zone.
+     *
+     * @param command the command to convert
+     * @param zone the latest known state of the zone, null if unknown
+     * @return the value, as it appears in the JSON request
+     */
+    public static JsonPrimitive getWireValue(Command command, @Nullable AirZoneHvacZone zone) {
+        if ((command instanceof QuantityType) && (zone != null)) {
+            Unit<Temperature> temperatureUnit = (zone.getUnits() == 0 ? SIUnits.CELSIUS : ImperialUnits.FAHRENHEIT);
+            QuantityType<?> temperature = ((QuantityType<?>) command).toUnit(temperatureUnit);
+            if (temperature != null) {
+                return new JsonPrimitive(temperature.doubleValue());
+            }
+        }
+
+        if (command instanceof Number) {
+            return new JsonPrimitive(((Number) command).doubleValue());
+        } else if (command instanceof OnOffType) {
+            return new JsonPrimitive((command == OnOffType.ON) ? 1 : 0);
+        } else {
+            return new JsonPrimitive(command.toString());
+        }
+    }
+
+    /**
+     * Indicates if the latest known state of the zone already has the given value for the field.
+     *
+     * @param zone the latest known state of the zone
+     * @param fieldName the name of the field
+     * @param value the value, as it would be sent to the web server
+     * @return true if sending the value would not change anything
+     */
+    public static boolean isCurrentValue(AirZoneHvacZone zone, String fieldName, JsonPrimitive value) {
+        JsonElement current = gson.toJsonTree(zone).getAsJsonObject().get(fieldName);
+        if ((current == null) || !current.isJsonPrimitive()) {
+            return false;
+        }
+
+        JsonPrimitive currentValue = current.getAsJsonPrimitive();
+        if (currentValue.isNumber() && value.isNumber()) {
+            return currentValue.getAsDouble() == value.getAsDouble();
+        }
+        return currentValue.getAsString().equals(value.getAsString());
+    }
+
+    /**
+     * Merges the fields given back by a PUT request into the latest known zones.
+     *
+     * @param jsonResponse the response to the PUT request
+     * @param fieldName the name of the field that was written
+     * @param sequence the sequence number issued for the PUT request
+     * @return true if the response contained the new value of the field for zones that were already known
+     */
+    private boolean mergePutResponse(@Nullable String jsonResponse, String fieldName, long sequence) {
+        if (jsonResponse == null) {
+            return false;
+        }
+
+        try {
+            JsonElement response = JsonParser.parseString(jsonResponse.replaceAll("^.+,\n", ""));
+            if (!response.isJsonObject() || !response.getAsJsonObject().has("data")
+                    || !response.getAsJsonObject().get("data").isJsonArray()) {
+                return false;
+            }
+
+            boolean merged = false;
+            long changedFields = 0;
+            for (JsonElement element : response.getAsJsonObject().getAsJsonArray("data")) {
+                if (!element.isJsonObject()) {
+                    return false;
+                }
+                JsonObject fields = element.getAsJsonObject();
+                if (!fields.has("systemID") || !fields.has("zoneID") || !fields.has(fieldName)) {
+                    return false;
+                }
+
+                int systemId = fields.get("systemID").getAsInt();
+                int zoneId = fields.get("zoneID").getAsInt();
+                AirZoneHvacZone zone = latestZones.get(systemId, zoneId);
+                if (zone == null) {
+                    return false;
+                }
+
+                JsonObject zoneFields = gson.toJsonTree(zone).getAsJsonObject();
+                for (Map.Entry<String, JsonElement> field : fields.entrySet()) {
+                    zoneFields.add(field.getKey(), field.getValue());
+                }
+                AirZoneHvacZone mergedZone = gson.fromJson(zoneFields, AirZoneHvacZone.class);
+                mergedZone.setSequence(sequence);
+                if (statistics.isStateUpdateListened()) {
+                    changedFields += countChangedFields(zone, gson.toJsonTree(mergedZone).getAsJsonObject());
+                }
+                latestZones.put(systemId, zoneId, mergedZone);
+                merged = true;
+            }
+            if (merged) {
+                statistics.recordStateUpdate(changedFields);
+            }
+            return merged;
+        } catch (JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+            logger.debug("mergePutResponse: {} - unexpected response {}: {}", fieldName, jsonResponse, e.toString());
+            return false;
+        }
     }
 
     private @Nullable String executeHvacPostUrl(String requestContent) throws IOException {
@@ -463,45 +1165,137 @@ public class AirZoneApiManager {
         return executeUrl("PUT", resourceName, requestContent);
     }
 
-    private static final Object executeUrlLock = new Object();
-    private static @Nullable Instant nextCallNotBefore = null;
+    private void recordFailure(String resourceName) {
+        if (circuitBreaker.recordFailure()) {
+            logger.warn("executeUrl: {} consecutive failures on {}, web server {} is considered unresponsive",
+                    circuitBreaker.getConsecutiveFailures(), resourceName, airZoneBridgeConfiguration.ipAddress);
+        }
+    }
+
+    /**
+     * Minimum time between the end of a request and the start of the next one sent to the same web server.
+     */
+    private static final long PACING_MSECS = 3000L;
+
+    /**
+     * The purpose of a request, which tells how it is handled and accounted for.
+     */
+    private enum RequestKind {
+        /** Regular request, failing fast while the circuit is open */
+        REGULAR,
+        /** Request checking if an unresponsive web server is back, sent even while the circuit is open */
+        CIRCUIT_PROBE,
+        /** Request measuring the round trip time on behalf of the console, kept out of the regular statistics */
+        LATENCY_PROBE
+    }
 
     private @Nullable String executeUrl(String httpMethod, String resourceName, String requestContent)
             throws IOException {
+        return executeUrl(httpMethod, resourceName, requestContent, RequestKind.REGULAR);
+    }
+
+    private @Nullable String executeUrl(String httpMethod, String resourceName, String requestContent,
+            RequestKind kind) throws IOException {
+        if (closed) {
+            throw new InterruptedIOException("connection to web server " + airZoneBridgeConfiguration.ipAddress
+                    + " is closed");
+        }
+        // fail fast rather than waiting for the timeout of a web server known to be unresponsive
+        if ((kind != RequestKind.CIRCUIT_PROBE) && circuitBreaker.isOpen()) {
+            throw new IOException("web server " + airZoneBridgeConfiguration.ipAddress + " is not responding");
+        }
+
         String url = "http://".concat(airZoneBridgeConfiguration.ipAddress).concat(":")
                 .concat(Integer.toString(airZoneBridgeConfiguration.tcpPort)).concat("/api/v1/").concat(resourceName);
         Properties headerItems = new Properties();
         InputStream content = new ByteArrayInputStream(requestContent.getBytes(StandardCharsets.UTF_8));
 
         String jsonResponse = null;
-        logger.trace("executeUrl - {}: trying to enter synchronized section", httpMethod);
-        synchronized (executeUrlLock) {
-            // Give the bridge some time to breathe, but only wait until the next allowed time has been reached
-            // If no call was ever made, use a default value in the past so that the while loop below exits immediately.
-            @NonNull
-            Instant effectiveNextCallNotBefore = Objects.requireNonNullElse(nextCallNotBefore,
-                    Instant.now().minus(1, ChronoUnit.MINUTES));
-
-            logger.trace("executeUrl - {}: Next call not before: {}", httpMethod, effectiveNextCallNotBefore);
-            while ((Instant.now().isBefore(effectiveNextCallNotBefore))) {
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException ie) {
-                    logger.trace("io() wait interrupted.");
-                }
-            }
+        long waitStartNanos = System.nanoTime();
+        logger.trace("executeUrl - {}: waiting for the turn of this request", httpMethod);
+        // Give the bridge some time to breathe, whoever sent the previous request to it
+        pacingGate.enter(() -> closed);
+        try {
             logger.trace("executeUrl - {}: wait has ended, send HTTP request", httpMethod);
+            long sendNanos = System.nanoTime();
+            long sendMillis = System.currentTimeMillis();
+            if (kind != RequestKind.LATENCY_PROBE) {
+                statistics.recordPacingWait(sendNanos - waitStartNanos);
+            }
+            AirZoneHttpExchangeEvent exchangeEvent = AirZoneFlightRecorder.beginHttpExchange();
 
-            jsonResponse = HttpUtil.executeUrl(httpMethod, url, headerItems, content, "application/json",
-                    airZoneBridgeConfiguration.timeoutMsecs);
-
-            nextCallNotBefore = Instant.now().plus(3, ChronoUnit.SECONDS);
+            try {
+                jsonResponse = HttpUtil.executeUrl(httpMethod, url, headerItems, content, "application/json",
+                        airZoneBridgeConfiguration.timeoutMsecs);
+            } catch (IOException ioe) {
+                // HttpUtil aborts the request when the thread is interrupted, this is not a failure of the web server
+                if (closed || Thread.currentThread().isInterrupted()
+                        || (ioe.getCause() instanceof InterruptedException)) {
+                    Thread.currentThread().interrupt();
+                    exchangeDone(exchangeEvent, httpMethod, resourceName, requestContent, null, "interrupted",
+                            waitStartNanos, sendNanos, sendMillis);
+                    InterruptedIOException interrupted = new InterruptedIOException(
+                            resourceName + " request interrupted");
+                    interrupted.initCause(ioe);
+                    throw interrupted;
+                }
+                boolean timedOut = (ioe instanceof SocketTimeoutException)
+                        || (ioe.getCause() instanceof TimeoutException);
+                recordRequest(kind, httpMethod, resourceName, timedOut ? Outcome.TIMEOUT : Outcome.ERROR,
+                        System.nanoTime() - sendNanos);
+                exchangeDone(exchangeEvent, httpMethod, resourceName, requestContent, null,
+                        timedOut ? "timeout" : "error", waitStartNanos, sendNanos, sendMillis);
+                recordFailure(resourceName);
+                throw ioe;
+            }
+            recordRequest(kind, httpMethod, resourceName, (jsonResponse != null) ? Outcome.SUCCESS : Outcome.ERROR,
+                    System.nanoTime() - sendNanos);
+            exchangeDone(exchangeEvent, httpMethod, resourceName, requestContent, jsonResponse,
+                    (jsonResponse != null) ? "success" : "error", waitStartNanos, sendNanos, sendMillis);
+            if (jsonResponse != null) {
+                circuitBreaker.recordSuccess();
+            } else {
+                recordFailure(resourceName);
+            }
+        } finally {
+            pacingGate.leave(PACING_MSECS);
         }
-        logger.trace("executeUrl - {}: exited synchronized section", httpMethod);
+        logger.trace("executeUrl - {}: request done", httpMethod);
 
         if (jsonResponse == null)
             logger.warn("no json response");
 
         return jsonResponse;
     }
+
+    private void recordRequest(RequestKind kind, String httpMethod, String resourceName, Outcome outcome,
+            long roundTripNanos) {
+        if (kind == RequestKind.LATENCY_PROBE) {
+            statistics.recordProbe(httpMethod, resourceName, outcome, roundTripNanos);
+        } else {
+            statistics.recordRequest(httpMethod, resourceName, outcome, roundTripNanos);
+        }
+    }
+
+    /**
+     * Keeps track of a finished exchange, in the recorder of the latest exchanges and as a flight recorder event.
+     */
+    private void exchangeDone(@Nullable AirZoneHttpExchangeEvent event, String httpMethod, String resourceName,
+            String requestContent, @Nullable String response, String outcome, long waitStartNanos, long sendNanos,
+            long sendMillis) {
+        long roundTripNanos = System.nanoTime() - sendNanos;
+        latestRoundTripNanos = roundTripNanos;
+        exchangeRecorder.record(sendMillis, httpMethod, resourceName, outcome, roundTripNanos, requestContent,
+                response);
+        if (event != null) {
+            event.webServer = airZoneBridgeConfiguration.ipAddress;
+            event.method = httpMethod;
+            event.resource = resourceName;
+            event.requestBytes = requestContent.getBytes(StandardCharsets.UTF_8).length;
+            event.responseBytes = (response != null) ? response.getBytes(StandardCharsets.UTF_8).length : 0;
+            event.outcome = outcome;
+            event.pacingWait = sendNanos - waitStartNanos;
+            event.commit();
+        }
+    }
 }
@@ -0,0 +1,260 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.internal.api;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * The {@link AirZoneApiStatistics} records the outcome and duration of the requests sent to a web server, and how
+ * many fields of the zones each state update changes.
+ * <P>
+ * Recording is cheap so that it can be done for every request: counters are {@link LongAdder}s and the round trip
+ * times are kept in a fixed size ring of the most recent samples. The percentiles are only computed when read, which
+ * happens once per poll at most.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class AirZoneApiStatistics {
+    /**
+     * How many of the most recent round trip times the percentiles are computed from.
+     */
+    public static final int RECENT_SAMPLES = 256;
+
+    /**
+     * Appended to the key of the counters of the probes, which are kept apart from the regular requests.
+     */
+    public static final String PROBE_SUFFIX = " probe";
+
+    /**
+     * The outcome of a request.
+     */
+    public enum Outcome {
+        SUCCESS,
+        ERROR,
+        TIMEOUT
+    }
+
+    /**
+     * The counters of a resource for a given HTTP method.
+     */
+    public static class Counters {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder roundTripNanos = new LongAdder();
+
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getTimeouts() {
+            return timeouts.sum();
+        }
+
+        public double getRoundTripNanos() {
+            return roundTripNanos.sum();
+        }
+
+        private void record(Outcome outcome, long roundTripNanos) {
+            requests.increment();
+            this.roundTripNanos.add(roundTripNanos);
+            if (outcome == Outcome.ERROR) {
+                errors.increment();
+            } else if (outcome == Outcome.TIMEOUT) {
+                timeouts.increment();
+            }
+        }
+    }
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+    private final Counters totals = new Counters();
+
+    private final long[] recentRoundTrips = new long[RECENT_SAMPLES];
+    private int recentRoundTripsCount = 0;
+    private int recentRoundTripsNext = 0;
+
+    private final LongAdder pacingWaitNanos = new LongAdder();
+    private final AtomicLong lastPollNanos = new AtomicLong();
+
+    private volatile @Nullable LongConsumer stateUpdateListener = null;
+
+    private static String getKey(String httpMethod, String resourceName) {
+        return httpMethod + " " + resourceName;
+    }
+
+    /**
+     * Records a request that went up to the web server.
+     *
+     * @param httpMethod the HTTP method of the request
+     * @param resourceName the resource the request was sent to
+     * @param outcome the outcome of the request
+     * @param roundTripNanos the time elapsed between sending the request and receiving its response
+     */
+    public void recordRequest(String httpMethod, String resourceName, Outcome outcome, long roundTripNanos) {
+        getCounters(httpMethod, resourceName).record(outcome, roundTripNanos);
+        totals.record(outcome, roundTripNanos);
+
+        synchronized (recentRoundTrips) {
+            recentRoundTrips[recentRoundTripsNext] = roundTripNanos;
+            recentRoundTripsNext = (recentRoundTripsNext + 1) % RECENT_SAMPLES;
+            if (recentRoundTripsCount < RECENT_SAMPLES) {
+                recentRoundTripsCount++;
+            }
+        }
+    }
+
+    /**
+     * Records a request sent to measure the round trip time of the web server. It is counted under its own key and
+     * left out of the totals and of the percentiles, which describe the regular traffic.
+     *
+     * @param httpMethod the HTTP method of the request
+     * @param resourceName the resource the request was sent to
+     * @param outcome the outcome of the request
+     * @param roundTripNanos the time elapsed between sending the request and receiving its response
+     */
+    public void recordProbe(String httpMethod, String resourceName, Outcome outcome, long roundTripNanos) {
+        getCounters(httpMethod, resourceName + PROBE_SUFFIX).record(outcome, roundTripNanos);
+    }
+
+    /**
+     * Records the time a request had to wait for before being allowed to be sent to the web server.
+     *
+     * @param waitNanos the waiting time
+     */
+    public void recordPacingWait(long waitNanos) {
+        pacingWaitNanos.add(waitNanos);
+    }
+
+    /**
+     * Records the duration of a whole poll cycle.
+     *
+     * @param durationNanos the duration of the cycle
+     */
+    public void recordPoll(long durationNanos) {
+        lastPollNanos.set(durationNanos);
+    }
+
+    /**
+     * Indicates if the number of fields changed by each state update is listened to. Counting them has a cost, so it
+     * is only done in that case.
+     *
+     * @return true if a listener is set
+     */
+    public boolean isStateUpdateListened() {
+        return stateUpdateListener != null;
+    }
+
+    /**
+     * Records an update of the latest known state of the zones, either from a poll or from the response to a command.
+     *
+     * @param changedFields how many fields of the zones changed, a zone seen for the first time counting all of its
+     *            fields
+     */
+    public void recordStateUpdate(long changedFields) {
+        @Nullable
+        LongConsumer listener = stateUpdateListener;
+        if (listener != null) {
+            listener.accept(changedFields);
+        }
+    }
+
+    /**
+     * Sets the listener given the number of fields changed by each state update, replacing the previous one.
+     *
+     * @param listener the listener, null to remove it
+     */
+    public void setStateUpdateListener(@Nullable LongConsumer listener) {
+        stateUpdateListener = listener;
+    }
+
+    public Counters getTotals() {
+        return totals;
+    }
+
+    /**
+     * Returns the counters of the given resource, creating them if no request was sent to it yet.
+     *
+     * @param httpMethod the HTTP method
+     * @param resourceName the resource
+     * @return the counters
+     */
+    public Counters getCounters(String httpMethod, String resourceName) {
+        return counters.computeIfAbsent(getKey(httpMethod, resourceName), k -> new Counters());
+    }
+
+    /**
+     * Returns the counters for each resource, keyed by HTTP method and resource name.
+     *
+     * @return a sorted copy of the counters
+     */
+    public Map<String, Counters> getCounters() {
+        return new TreeMap<>(counters);
+    }
+
+    public long getPacingWaitMsecs() {
+        return pacingWaitNanos.sum() / 1000000L;
+    }
+
+    public long getLastPollMsecs() {
+        return lastPollNanos.get() / 1000000L;
+    }
+
+    /**
+     * Returns the given percentile of the recent round trip times.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the round trip time in milliseconds, 0 if no request was recorded yet
+     */
+    public double getRoundTripPercentileMsecs(double percentile) {
+        long[] samples;
+        synchronized (recentRoundTrips) {
+            samples = Arrays.copyOf(recentRoundTrips, recentRoundTripsCount);
+        }
+        if (samples.length == 0) {
+            return 0;
+        }
+
+        Arrays.sort(samples);
+        int rank = (int) Math.ceil(percentile / 100.0 * samples.length) - 1;
+        return samples[Math.max(0, Math.min(rank, samples.length - 1))] / 1000000.0;
+    }
+
+    /**
+     * Returns a human readable summary of the counters of each resource.
+     *
+     * @return the summary
+     */
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        getCounters().forEach((key, c) -> {
+            if (summary.length() > 0) {
+                summary.append(", ");
+            }
+            summary.append(String.format("%s: %d/%d/%d", key, c.getRequests(), c.getErrors(), c.getTimeouts()));
+        });
+        return summary.toString();
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.internal.api;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The {@link AirZoneCircuitBreaker} keeps track of the failures of the requests sent to a web server.
+ * <P>
+ * After a given number of consecutive failures, the circuit opens: requests are expected to fail right away instead
+ * of waiting for their timeout, and the web server is only probed from time to time, with a delay that doubles after
+ * each unsuccessful probe. The first successful request closes the circuit again.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class AirZoneCircuitBreaker {
+    /**
+     * Ceiling of the delay between two probes.
+     */
+    public static final long MAX_PROBE_DELAY_MSECS = 300000L;
+
+    private int failureThreshold;
+    private long initialProbeDelayMsecs;
+
+    private int consecutiveFailures = 0;
+    private int probesDone = 0;
+    private boolean open = false;
+
+    public AirZoneCircuitBreaker(int failureThreshold, long initialProbeDelayMsecs) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.initialProbeDelayMsecs = Math.max(1, initialProbeDelayMsecs);
+    }
+
+    /**
+     * Changes the parameters of this circuit breaker without forgetting the failures recorded so far.
+     *
+     * @param failureThreshold the number of consecutive failures that opens the circuit
+     * @param initialProbeDelayMsecs the delay before the first probe once the circuit is open
+     */
+    public synchronized void retune(int failureThreshold, long initialProbeDelayMsecs) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.initialProbeDelayMsecs = Math.max(1, initialProbeDelayMsecs);
+        if (!open && (consecutiveFailures >= this.failureThreshold)) {
+            open = true;
+            probesDone = 0;
+        }
+    }
+
+    public synchronized boolean isOpen() {
+        return open;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * To be called when a request succeeded, closes the circuit.
+     */
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        probesDone = 0;
+        open = false;
+    }
+
+    /**
+     * To be called when a request failed, opens the circuit once the threshold is reached.
+     *
+     * @return true if this failure opened the circuit
+     */
+    public synchronized boolean recordFailure() {
+        consecutiveFailures++;
+        if (!open && (consecutiveFailures >= failureThreshold)) {
+            open = true;
+            probesDone = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the delay to wait for before the next probe, doubling it for the following one.
+     *
+     * @return the delay in milliseconds
+     */
+    public synchronized long getNextProbeDelayMsecs() {
+        long delay = initialProbeDelayMsecs;
+        for (int i = 0; (i < probesDone) && (delay < MAX_PROBE_DELAY_MSECS); i++) {
+            delay *= 2;
+        }
+        probesDone++;
+        return Math.min(delay, MAX_PROBE_DELAY_MSECS);
+    }
+}
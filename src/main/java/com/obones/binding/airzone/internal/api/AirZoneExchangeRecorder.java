@@ -0,0 +1,248 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.internal.api;
+
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * The {@link AirZoneExchangeRecorder} keeps the latest requests sent to a web server along with their responses, so
+ * that they can be looked at when a zone misbehaves without enabling the TRACE logs.
+ * <P>
+ * It is a fixed size ring buffer whose slots are allocated once: recording an exchange copies the beginning of the
+ * bodies into the character arrays of the slot and allocates nothing. It is lock-free: each slot is guarded by a
+ * sequence number, odd while a writer fills the slot and even once it is complete, and readers retry or skip the
+ * slots whose sequence number changed while they were copied.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class AirZoneExchangeRecorder {
+    /**
+     * Default number of exchanges kept.
+     */
+    public static final int DEFAULT_CAPACITY = 32;
+
+    /**
+     * Number of characters kept from the beginning of each body.
+     */
+    public static final int MAX_BODY_CHARS = 512;
+
+    private static final int MAX_READ_ATTEMPTS = 3;
+
+    /**
+     * A copy of a recorded exchange.
+     */
+    public static class Exchange {
+        private final long sequence;
+        private final long timeMillis;
+        private final String method;
+        private final String resource;
+        private final String outcome;
+        private final long latencyNanos;
+        private final String request;
+        private final String response;
+
+        private Exchange(long sequence, long timeMillis, String method, String resource, String outcome,
+                long latencyNanos, String request, String response) {
+            this.sequence = sequence;
+            this.timeMillis = timeMillis;
+            this.method = method;
+            this.resource = resource;
+            this.outcome = outcome;
+            this.latencyNanos = latencyNanos;
+            this.request = request;
+            this.response = response;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getResource() {
+            return resource;
+        }
+
+        public String getOutcome() {
+            return outcome;
+        }
+
+        public long getLatencyNanos() {
+            return latencyNanos;
+        }
+
+        public String getRequest() {
+            return request;
+        }
+
+        public String getResponse() {
+            return response;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("#%d %s %s %s %s %.1f ms request=%s response=%s", sequence,
+                    Instant.ofEpochMilli(timeMillis), method, resource, outcome, latencyNanos / 1000000.0, request,
+                    response);
+        }
+    }
+
+    private static class Slot {
+        // 2 * sequence + 1 while being written, 2 * sequence + 2 once complete, 0 if never written
+        private final AtomicLong state = new AtomicLong();
+        private long timeMillis;
+        private String method = "";
+        private String resource = "";
+        private String outcome = "";
+        private long latencyNanos;
+        private final char[] request = new char[MAX_BODY_CHARS];
+        private int requestLength;
+        private boolean requestTruncated;
+        private final char[] response = new char[MAX_BODY_CHARS];
+        private int responseLength;
+        private boolean responseTruncated;
+    }
+
+    private final Slot[] slots;
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    public AirZoneExchangeRecorder() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public AirZoneExchangeRecorder(int capacity) {
+        slots = new Slot[Math.max(1, capacity)];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * Records an exchange, overwriting the oldest one if the buffer is full.
+     *
+     * @param timeMillis the time at which the request was sent
+     * @param method the HTTP method
+     * @param resource the resource the request was sent to
+     * @param outcome the outcome of the request
+     * @param latencyNanos the time taken to receive the response
+     * @param request the body of the request
+     * @param response the body of the response, null if there was none
+     */
+    public void record(long timeMillis, String method, String resource, String outcome, long latencyNanos,
+            String request, @Nullable String response) {
+        long sequence = nextSequence.getAndIncrement();
+        Slot slot = slots[(int) (sequence % slots.length)];
+
+        slot.state.set(2 * sequence + 1);
+        // readers must not see the new content before the slot is marked as being written
+        VarHandle.releaseFence();
+        slot.timeMillis = timeMillis;
+        slot.method = method;
+        slot.resource = resource;
+        slot.outcome = outcome;
+        slot.latencyNanos = latencyNanos;
+        slot.requestLength = Math.min(request.length(), MAX_BODY_CHARS);
+        slot.requestTruncated = request.length() > MAX_BODY_CHARS;
+        request.getChars(0, slot.requestLength, slot.request, 0);
+        if (response != null) {
+            slot.responseLength = Math.min(response.length(), MAX_BODY_CHARS);
+            slot.responseTruncated = response.length() > MAX_BODY_CHARS;
+            response.getChars(0, slot.responseLength, slot.response, 0);
+        } else {
+            slot.responseLength = 0;
+            slot.responseTruncated = false;
+        }
+        // a writer that wrapped around the whole buffer meanwhile owns the slot now and publishes it, this cannot
+        // happen with the requests of a web server as they are sent one at a time
+        slot.state.compareAndSet(2 * sequence + 1, 2 * sequence + 2);
+    }
+
+    /**
+     * Returns how many exchanges were recorded since the start, including the ones that were overwritten.
+     *
+     * @return the number of exchanges
+     */
+    public long getRecordedCount() {
+        return nextSequence.get();
+    }
+
+    /**
+     * Returns a copy of the exchanges currently kept, oldest first. The exchanges being written at that time are not
+     * part of the result.
+     *
+     * @return the exchanges
+     */
+    public List<Exchange> getExchanges() {
+        List<Exchange> exchanges = new ArrayList<>(slots.length);
+        long end = nextSequence.get();
+        for (long sequence = Math.max(0, end - slots.length); sequence < end; sequence++) {
+            Exchange exchange = read(sequence);
+            if (exchange != null) {
+                exchanges.add(exchange);
+            }
+        }
+        return exchanges;
+    }
+
+    private @Nullable Exchange read(long sequence) {
+        Slot slot = slots[(int) (sequence % slots.length)];
+        long expectedState = 2 * sequence + 2;
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            if (slot.state.get() != expectedState) {
+                // still being written, or already overwritten by a more recent exchange
+                Thread.onSpinWait();
+                continue;
+            }
+            Exchange exchange = new Exchange(sequence, slot.timeMillis, slot.method, slot.resource, slot.outcome,
+                    slot.latencyNanos, getBody(slot.request, slot.requestLength, slot.requestTruncated),
+                    getBody(slot.response, slot.responseLength, slot.responseTruncated));
+            VarHandle.acquireFence();
+            if (slot.state.get() == expectedState) {
+                return exchange;
+            }
+        }
+        return null;
+    }
+
+    private static String getBody(char[] body, int length, boolean truncated) {
+        int safeLength = Math.max(0, Math.min(length, body.length));
+        String value = new String(body, 0, safeLength);
+        return truncated ? value + "..." : value;
+    }
+
+    /**
+     * Returns the exchanges currently kept, one per line, oldest first.
+     *
+     * @return the dump
+     */
+    public String dump() {
+        StringBuilder builder = new StringBuilder();
+        for (Exchange exchange : getExchanges()) {
+            builder.append(exchange).append(System.lineSeparator());
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.internal.api;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The {@link AirZoneFetchTimes} keeps track of when the zones of each system were last retrieved in full from the web
+ * server.
+ * <P>
+ * Unlike the time of the latest poll, it is not misled by the polls that skip the systems nothing is interested in,
+ * nor by the zones restored from a snapshot, which are never recorded here.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class AirZoneFetchTimes {
+    private final LongSupplier clock;
+    private final Map<Integer, Long> fetchMsecs = new HashMap<>();
+
+    public AirZoneFetchTimes() {
+        this(System::currentTimeMillis);
+    }
+
+    public AirZoneFetchTimes(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * To be called once all the zones of a system were retrieved from the web server.
+     *
+     * @param systemId the identifier of the system
+     */
+    public synchronized void systemFetched(int systemId) {
+        fetchMsecs.put(systemId, clock.getAsLong());
+    }
+
+    /**
+     * Indicates if the zones of a system were retrieved from the web server less than the given age ago.
+     *
+     * @param systemId the identifier of the system
+     * @param maxAgeMsecs the maximum age, in milliseconds
+     * @return true if the zones of the system are fresh enough
+     */
+    public synchronized boolean isSystemFresh(int systemId, long maxAgeMsecs) {
+        Long fetchedAt = fetchMsecs.get(systemId);
+        return (fetchedAt != null) && (clock.getAsLong() - fetchedAt < maxAgeMsecs);
+    }
+}
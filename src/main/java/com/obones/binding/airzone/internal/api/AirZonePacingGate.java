@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.internal.api;
+
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The {@link AirZonePacingGate} lets a single request at a time reach a web server, and gives it some time to breathe
+ * between two requests.
+ * <P>
+ * There is one gate per web server address, shared by all the managers talking to it: the one of a bridge that was
+ * re-initialized while its previous request is still in progress, or the ones of two bridges configured with the same
+ * address. The requests wait for their turn in order of arrival.
+ * <P>
+ * The gate relies on a {@link ReentrantLock} rather than on a monitor, so that a virtual thread waiting for its turn or
+ * holding the gate during a request does not pin its carrier thread.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class AirZonePacingGate {
+    /**
+     * Interval at which a waiting request checks if it was abandoned.
+     */
+    static final long CHECK_INTERVAL_MSECS = 100L;
+
+    private static final Map<String, AirZonePacingGate> gates = new ConcurrentHashMap<>();
+
+    /**
+     * Waits for a given time, replaced by a fake one in the tests.
+     */
+    @FunctionalInterface
+    public interface Sleeper {
+        void sleep(long msecs) throws InterruptedException;
+    }
+
+    private final String webServer;
+    private final LongSupplier nanoClock;
+    private final Sleeper sleeper;
+    private final ReentrantLock lock = new ReentrantLock(true);
+
+    // only accessed while holding the lock
+    private long nextCallNotBeforeNanos = 0;
+    private boolean called = false;
+
+    public AirZonePacingGate(String webServer) {
+        this(webServer, System::nanoTime, Thread::sleep);
+    }
+
+    public AirZonePacingGate(String webServer, LongSupplier nanoClock, Sleeper sleeper) {
+        this.webServer = webServer;
+        this.nanoClock = nanoClock;
+        this.sleeper = sleeper;
+    }
+
+    /**
+     * Returns the gate of the given web server, the same one for all its callers.
+     *
+     * @param ipAddress the address of the web server
+     * @param tcpPort the port of the web server
+     * @return the gate
+     */
+    public static AirZonePacingGate forWebServer(String ipAddress, int tcpPort) {
+        return gates.computeIfAbsent(ipAddress + ":" + tcpPort, AirZonePacingGate::new);
+    }
+
+    /**
+     * Waits until no other request is in progress and the pause after the previous one has elapsed. Every successful
+     * call must be followed by a call to {@link #leave}.
+     *
+     * @param abandoned tells if the caller gave up on its request, which is checked while waiting
+     * @return the time spent waiting, in nanoseconds
+     * @throws InterruptedIOException if the request was abandoned or the thread interrupted while waiting
+     */
+    public long enter(BooleanSupplier abandoned) throws InterruptedIOException {
+        long startNanos = nanoClock.getAsLong();
+        try {
+            while (!lock.tryLock(CHECK_INTERVAL_MSECS, TimeUnit.MILLISECONDS)) {
+                checkAbandoned(abandoned);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("wait for web server " + webServer + " interrupted");
+        }
+
+        try {
+            long remainingNanos;
+            while (called && ((remainingNanos = nextCallNotBeforeNanos - nanoClock.getAsLong()) > 0)) {
+                checkAbandoned(abandoned);
+                sleeper.sleep(Math.min(CHECK_INTERVAL_MSECS, TimeUnit.NANOSECONDS.toMillis(remainingNanos) + 1));
+            }
+        } catch (InterruptedException e) {
+            lock.unlock();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("wait for web server " + webServer + " interrupted");
+        } catch (InterruptedIOException e) {
+            lock.unlock();
+            throw e;
+        }
+        return nanoClock.getAsLong() - startNanos;
+    }
+
+    /**
+     * Lets the next request in, once the given pause has elapsed.
+     *
+     * @param pauseMsecs the minimum time between the end of the request and the start of the next one
+     */
+    public void leave(long pauseMsecs) {
+        nextCallNotBeforeNanos = nanoClock.getAsLong() + TimeUnit.MILLISECONDS.toNanos(pauseMsecs);
+        called = true;
+        lock.unlock();
+    }
+
+    private void checkAbandoned(BooleanSupplier abandoned) throws InterruptedIOException {
+        if (abandoned.getAsBoolean()) {
+            throw new InterruptedIOException("connection to web server " + webServer + " is closed");
+        }
+    }
+}
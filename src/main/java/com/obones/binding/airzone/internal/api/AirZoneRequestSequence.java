@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.internal.api;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The {@link AirZoneRequestSequence} numbers the requests issued to a web server so that the age of the data they
+ * returned can be compared to the commands sent in the meantime.
+ * <P>
+ * Every snapshot is tagged with the sequence number at which its request was issued and every command with the
+ * sequence number at which it was sent. A snapshot is only applied to a field if it was issued after the last command
+ * sent for that field, otherwise it would overwrite the commanded value with the value it had before the command.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class AirZoneRequestSequence {
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Object, Long> commandSequences = new ConcurrentHashMap<>();
+
+    /**
+     * Issues a new sequence number, to be called right before sending a request.
+     *
+     * @return the sequence number, greater than any other issued before
+     */
+    public long issue() {
+        return sequence.incrementAndGet();
+    }
+
+    /**
+     * Returns the latest issued sequence number.
+     *
+     * @return the sequence number, 0 if none was issued yet
+     */
+    public long getLatestIssued() {
+        return sequence.get();
+    }
+
+    /**
+     * Records that a command was sent for the given field.
+     *
+     * @param key the field the command was sent for
+     * @param commandSequence the sequence number issued for the command
+     */
+    public void commandSent(Object key, long commandSequence) {
+        commandSequences.merge(key, commandSequence, Math::max);
+    }
+
+    /**
+     * Indicates if a snapshot is recent enough to be applied to the given field.
+     *
+     * @param key the field the snapshot would be applied to
+     * @param snapshotSequence the sequence number issued for the request that returned the snapshot
+     * @return true if no command was sent for the field after the snapshot request was issued
+     */
+    public boolean isSnapshotCurrent(Object key, long snapshotSequence) {
+        Long commandSequence = commandSequences.get(key);
+        return (commandSequence == null) || (snapshotSequence > commandSequence);
+    }
+}
@@ -25,18 +25,12 @@ public class AirZoneHvacZone {
     private int on;
     private int double_sp;
     private double coolsetpoint;
-    @SuppressWarnings("unused")
     private double coolmaxtemp;
-    @SuppressWarnings("unused")
     private double coolmintemp;
     private double heatsetpoint;
-    @SuppressWarnings("unused")
     private double heatmaxtemp;
-    @SuppressWarnings("unused")
     private double heatmintemp;
-    @SuppressWarnings("unused")
     private double maxTemp;
-    @SuppressWarnings("unused")
     private double minTemp;
     private double setpoint;
     private double roomTemp;
@@ -73,6 +67,9 @@ public class AirZoneHvacZone {
     private @Nullable Integer slats_vertical;
     private @Nullable Integer slats_horizontal;
 
+    // sequence number of the request that returned this zone, not part of the JSON content
+    private transient long sequence;
+
     public int getSystemID() {
         return systemID;
     };
@@ -117,6 +114,30 @@ public class AirZoneHvacZone {
         return setpoint;
     };
 
+    public double getCoolMaxTemp() {
+        return coolmaxtemp;
+    }
+
+    public double getCoolMinTemp() {
+        return coolmintemp;
+    }
+
+    public double getHeatMaxTemp() {
+        return heatmaxtemp;
+    }
+
+    public double getHeatMinTemp() {
+        return heatmintemp;
+    }
+
+    public double getMaxTemp() {
+        return maxTemp;
+    }
+
+    public double getMinTemp() {
+        return minTemp;
+    }
+
     public double getRoomTemp() {
         return roomTemp;
     };
@@ -177,6 +198,14 @@ public class AirZoneHvacZone {
         return heatStages;
     };
 
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
     public double getHumidity() {
         return humidity;
     };
@@ -0,0 +1,31 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.internal.api.model;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * The latest known zones and systems of a bridge, as persisted between restarts.
+ * The zones and systems use the same format as the responses of the web server.
+ */
+public class AirZoneSnapshot {
+    private @Nullable AirZoneHvacResponse zones;
+    private @Nullable AirZoneHvacSystemsResponse systems;
+
+    public @Nullable AirZoneHvacResponse getZones() {
+        return zones;
+    }
+
+    public @Nullable AirZoneHvacSystemsResponse getSystems() {
+        return systems;
+    }
+}
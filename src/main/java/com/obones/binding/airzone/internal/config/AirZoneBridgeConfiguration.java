@@ -21,6 +21,32 @@ public class AirZoneBridgeConfiguration {
     public static final String BRIDGE_TIMEOUT_MSECS = "timeoutMsecs";
     public static final String BRIDGE_RETRIES = "retries";
     public static final String BRIDGE_REFRESH_MSECS = "refreshMsecs";
+    public static final String BRIDGE_FAILURE_THRESHOLD = "failureThreshold";
+    public static final String BRIDGE_COMMAND_TIMEOUT_MSECS = "commandTimeoutMsecs";
+    public static final String BRIDGE_COMMAND_QUEUE_CAPACITY = "commandQueueCapacity";
+    public static final String BRIDGE_COMMAND_QUEUE_OVERFLOW = "commandQueueOverflow";
+    public static final String BRIDGE_FAST_REFRESH_MSECS = "fastRefreshMsecs";
+    public static final String BRIDGE_MAX_REFRESH_MSECS = "maxRefreshMsecs";
+    public static final String BRIDGE_SYSTEMS_REFRESH_MSECS = "systemsRefreshMsecs";
+    public static final String BRIDGE_WEBSERVER_REFRESH_MSECS = "webServerRefreshMsecs";
+    public static final String BRIDGE_SUPPRESS_REDUNDANT_COMMANDS = "suppressRedundantCommands";
+    public static final String BRIDGE_SETPOINT_POLICY = "setpointPolicy";
+    public static final String BRIDGE_OPTIMISTIC_UPDATES = "optimisticUpdates";
+    public static final String BRIDGE_VIRTUAL_THREADS = "virtualThreads";
+    public static final String BRIDGE_DIAGNOSTIC_CHANNELS = "diagnosticChannels";
+
+    /*
+     * Possible values for the setpoint policy
+     */
+    public static final String SETPOINT_POLICY_CLAMP = "clamp";
+    public static final String SETPOINT_POLICY_REJECT = "reject";
+    public static final String SETPOINT_POLICY_NONE = "none";
+
+    /*
+     * Possible values for the command queue overflow policy
+     */
+    public static final String COMMAND_QUEUE_OVERFLOW_DROP_OLDEST = "dropOldest";
+    public static final String COMMAND_QUEUE_OVERFLOW_REJECT = "reject";
 
     /*
      * Value to flag any changes towards the getter.
@@ -34,5 +60,18 @@ public class AirZoneBridgeConfiguration {
     public int tcpPort = 3000;
     public int timeoutMsecs = 3000; // three seconds
     public int retries = 5;
-    public long refreshMSecs = 10000L; // 10 seconds
+    public long refreshMsecs = 10000L; // 10 seconds
+    public int failureThreshold = 3; // consecutive failures before the web server is considered unresponsive
+    public long commandTimeoutMsecs = 30000L; // 30 seconds, commands waiting longer than this are dropped
+    public int commandQueueCapacity = 20; // commands that can wait to be sent at the same time
+    public String commandQueueOverflow = COMMAND_QUEUE_OVERFLOW_DROP_OLDEST; // what to do when the queue is full
+    public long fastRefreshMsecs = 5000L; // 5 seconds, after a command or a change of activity
+    public long maxRefreshMsecs = 60000L; // 1 minute, when all zones are off and stable
+    public long systemsRefreshMsecs = 60000L; // 1 minute
+    public long webServerRefreshMsecs = 300000L; // 5 minutes
+    public boolean suppressRedundantCommands = true; // do not send values that the zone already has
+    public String setpointPolicy = SETPOINT_POLICY_CLAMP; // what to do with setpoints outside of the zone limits
+    public boolean optimisticUpdates = false; // publish the commanded state before the bridge confirms it
+    public boolean virtualThreads = false; // only honored on Java 21 and later
+    public boolean diagnosticChannels = false; // add the channels describing the communications with the web server
 }
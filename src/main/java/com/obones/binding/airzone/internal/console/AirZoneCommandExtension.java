@@ -0,0 +1,342 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.internal.console;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.io.console.Console;
+import org.openhab.core.io.console.extensions.AbstractConsoleCommandExtension;
+import org.openhab.core.io.console.extensions.ConsoleCommandExtension;
+import org.openhab.core.thing.Thing;
+import org.openhab.core.thing.ThingRegistry;
+import org.openhab.core.thing.binding.ThingHandler;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+import com.obones.binding.airzone.internal.AirZoneBindingConstants;
+import com.obones.binding.airzone.internal.api.AirZoneApiManager;
+import com.obones.binding.airzone.internal.api.AirZoneApiStatistics;
+import com.obones.binding.airzone.internal.api.model.AirZoneHvacSystemInfo;
+import com.obones.binding.airzone.internal.api.model.AirZoneHvacSystemsResponse;
+import com.obones.binding.airzone.internal.api.model.AirZoneHvacZone;
+import com.obones.binding.airzone.internal.handler.AirZoneBridgeHandler;
+import com.obones.binding.airzone.internal.handler.utils.AirZoneBridgeActor;
+import com.obones.binding.airzone.internal.handler.utils.AirZoneBridgeActor.MessageType;
+
+/**
+ * The {@link AirZoneCommandExtension} provides the {@code airzone} console command, giving live diagnostics of the
+ * bridges without a debugger or TRACE logs:
+ * <UL>
+ * <LI>{@code list} shows the state of the command queue and the request statistics of each bridge,</LI>
+ * <LI>{@code probe} measures the round trip time of a web server with a series of paced requests, printing each of
+ * them as it is done,</LI>
+ * <LI>{@code snapshot} prints the latest known state of the installation, as saved across restarts,</LI>
+ * <LI>{@code capabilities} prints the features reported for each zone and system,</LI>
+ * <LI>{@code exchanges} prints the latest requests sent to the web server with their responses.</LI>
+ * </UL>
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+@Component(service = ConsoleCommandExtension.class)
+public class AirZoneCommandExtension extends AbstractConsoleCommandExtension {
+    private static final String SUBCMD_LIST = "list";
+    private static final String SUBCMD_PROBE = "probe";
+    private static final String SUBCMD_SNAPSHOT = "snapshot";
+    private static final String SUBCMD_CAPABILITIES = "capabilities";
+    private static final String SUBCMD_EXCHANGES = "exchanges";
+
+    private static final String RESOURCE_VERSION = "version";
+    private static final String RESOURCE_HVAC = "hvac";
+    private static final int DEFAULT_PROBE_COUNT = 5;
+
+    /**
+     * Maximum time to wait for the bridge to read its state on behalf of the console.
+     */
+    private static final long READ_STATE_TIMEOUT_MSECS = 10000L;
+
+    private final ThingRegistry thingRegistry;
+
+    @Activate
+    public AirZoneCommandExtension(final @Reference ThingRegistry thingRegistry) {
+        super(AirZoneBindingConstants.BINDING_ID, "Diagnose the AirZone bridges.");
+        this.thingRegistry = thingRegistry;
+    }
+
+    @Override
+    public List<String> getUsages() {
+        return List.of(buildCommandUsage(SUBCMD_LIST, "list the bridges with their queue and request statistics"),
+                buildCommandUsage(SUBCMD_PROBE + " <bridgeUID> [" + RESOURCE_VERSION + "|" + RESOURCE_HVAC
+                        + "] [count]", "measure the round trip time of the web server with paced requests"),
+                buildCommandUsage(SUBCMD_SNAPSHOT + " <bridgeUID>", "print the latest known state of the bridge"),
+                buildCommandUsage(SUBCMD_CAPABILITIES + " <bridgeUID>",
+                        "print the features reported for each zone and system"),
+                buildCommandUsage(SUBCMD_EXCHANGES + " <bridgeUID>",
+                        "print the latest requests sent to the web server"));
+    }
+
+    @Override
+    public void execute(String[] args, Console console) {
+        if (args.length == 0) {
+            printUsage(console);
+            return;
+        }
+
+        if (SUBCMD_LIST.equals(args[0])) {
+            list(console);
+            return;
+        }
+
+        if (args.length < 2) {
+            printUsage(console);
+            return;
+        }
+        AirZoneBridgeHandler bridgeHandler = getBridgeHandler(args[1]);
+        if (bridgeHandler == null) {
+            console.println("No running AirZone bridge with UID " + args[1] + ".");
+            return;
+        }
+
+        switch (args[0]) {
+            case SUBCMD_PROBE:
+                probe(bridgeHandler, args, console);
+                break;
+            case SUBCMD_SNAPSHOT:
+                readState(bridgeHandler, console, apiManager -> {
+                    String snapshot = apiManager.exportSnapshot();
+                    return (snapshot != null) ? snapshot : "The zones were not retrieved from the web server yet.";
+                });
+                break;
+            case SUBCMD_CAPABILITIES:
+                readState(bridgeHandler, console, AirZoneCommandExtension::getCapabilities);
+                break;
+            case SUBCMD_EXCHANGES:
+                String dump = bridgeHandler.getApiManager().getExchangeRecorder().dump();
+                console.print(dump.isEmpty() ? "No exchange recorded yet." + System.lineSeparator() : dump);
+                break;
+            default:
+                printUsage(console);
+                break;
+        }
+    }
+
+    private List<AirZoneBridgeHandler> getBridgeHandlers() {
+        List<AirZoneBridgeHandler> bridgeHandlers = new ArrayList<>();
+        for (Thing thing : thingRegistry.getAll()) {
+            ThingHandler handler = thing.getHandler();
+            if (handler instanceof AirZoneBridgeHandler) {
+                bridgeHandlers.add((AirZoneBridgeHandler) handler);
+            }
+        }
+        return bridgeHandlers;
+    }
+
+    private @Nullable AirZoneBridgeHandler getBridgeHandler(String bridgeUID) {
+        for (AirZoneBridgeHandler bridgeHandler : getBridgeHandlers()) {
+            if (bridgeHandler.getThing().getUID().getAsString().equals(bridgeUID)) {
+                return bridgeHandler;
+            }
+        }
+        return null;
+    }
+
+    private void list(Console console) {
+        List<AirZoneBridgeHandler> bridgeHandlers = getBridgeHandlers();
+        if (bridgeHandlers.isEmpty()) {
+            console.println("No AirZone bridge.");
+            return;
+        }
+
+        for (AirZoneBridgeHandler bridgeHandler : bridgeHandlers) {
+            Thing bridge = bridgeHandler.getThing();
+            AirZoneApiManager apiManager = bridgeHandler.getApiManager();
+            AirZoneApiStatistics statistics = apiManager.getStatistics();
+            AirZoneApiStatistics.Counters totals = statistics.getTotals();
+            AirZoneBridgeActor actor = bridgeHandler.getActor();
+            long zonesAgeMsecs = apiManager.getZonesAgeMsecs();
+
+            console.println(String.format("%s (%s): %s", bridge.getUID(), bridge.getLabel(), bridge.getStatus()));
+            console.println(String.format("  queue: %s", (actor == null) ? "not running"
+                    : String.format("%d commands, oldest waiting for %d ms, %s", actor.getPendingCommandCount(),
+                            actor.getOldestCommandAgeMillis(), actor.getStatisticsSummary())));
+            console.println(String.format("  state: %s, latest poll took %d ms",
+                    (zonesAgeMsecs < 0) ? "unknown" : String.format("%d s old", zonesAgeMsecs / 1000),
+                    statistics.getLastPollMsecs()));
+            console.println(String.format(
+                    "  requests: %d, %d errors, %d timeouts, round trip p50 %.1f ms, p95 %.1f ms, p99 %.1f ms, "
+                            + "pacing wait %d ms",
+                    totals.getRequests(), totals.getErrors(), totals.getTimeouts(),
+                    statistics.getRoundTripPercentileMsecs(50), statistics.getRoundTripPercentileMsecs(95),
+                    statistics.getRoundTripPercentileMsecs(99), statistics.getPacingWaitMsecs()));
+            String summary = statistics.getSummary();
+            if (!summary.isEmpty()) {
+                console.println("  by resource (requests/errors/timeouts): " + summary);
+            }
+        }
+    }
+
+    private void probe(AirZoneBridgeHandler bridgeHandler, String[] args, Console console) {
+        String resourceName = (args.length > 2) ? args[2] : RESOURCE_VERSION;
+        if (!RESOURCE_VERSION.equals(resourceName) && !RESOURCE_HVAC.equals(resourceName)) {
+            printUsage(console);
+            return;
+        }
+        int count = DEFAULT_PROBE_COUNT;
+        if (args.length > 3) {
+            try {
+                count = Integer.parseInt(args[3]);
+            } catch (NumberFormatException e) {
+                printUsage(console);
+                return;
+            }
+            if ((count < 1) || (count > AirZoneBridgeHandler.LATENCY_MAX_SAMPLES)) {
+                console.println("The count must be between 1 and " + AirZoneBridgeHandler.LATENCY_MAX_SAMPLES + ".");
+                return;
+            }
+        }
+
+        console.println(String.format("Sending %d paced %s requests to %s, for %d s at most...", count, resourceName,
+                bridgeHandler.getThing().getUID(), AirZoneBridgeHandler.LATENCY_MAX_DURATION_MSECS / 1000));
+        AtomicInteger sent = new AtomicInteger();
+        List<Long> roundTrips;
+        try {
+            roundTrips = new ArrayList<>(
+                    bridgeHandler.measureLatency(resourceName, count, (sample, samples, roundTripNanos) -> {
+                        sent.set(sample);
+                        console.println(String.format("  %d/%d: %s", sample, samples, (roundTripNanos < 0)
+                                ? "no answer" : String.format("%.1f ms", roundTripNanos / 1000000.0)));
+                    }));
+        } catch (IOException e) {
+            console.println("Probe failed: " + e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            console.println("Probe interrupted.");
+            return;
+        }
+
+        if (sent.get() < count) {
+            console.println(String.format("Time is up, only %d of the %d requests were sent.", sent.get(), count));
+        }
+        if (roundTrips.isEmpty()) {
+            console.println(String.format("No answer to the %d requests.", sent.get()));
+            return;
+        }
+        Collections.sort(roundTrips);
+        long total = 0;
+        for (long roundTrip : roundTrips) {
+            total += roundTrip;
+        }
+        int p95Rank = Math.max(0, (int) Math.ceil(0.95 * roundTrips.size()) - 1);
+        console.println(String.format("%d/%d answered: min %.1f ms, avg %.1f ms, max %.1f ms, p95 %.1f ms",
+                roundTrips.size(), sent.get(), roundTrips.get(0) / 1000000.0, total / 1000000.0 / roundTrips.size(),
+                roundTrips.get(roundTrips.size() - 1) / 1000000.0, roundTrips.get(p95Rank) / 1000000.0));
+    }
+
+    /**
+     * Reads from the latest known state on the actor thread, where it is updated, and prints the result.
+     */
+    private void readState(AirZoneBridgeHandler bridgeHandler, Console console, StateReader reader) {
+        AirZoneBridgeActor actor = bridgeHandler.getActor();
+        StringBuilder result = new StringBuilder();
+        CompletableFuture<@Nullable Void> future = (actor == null) ? null
+                : actor.submit(MessageType.REFRESH, null, READ_STATE_TIMEOUT_MSECS,
+                        () -> result.append(reader.read(bridgeHandler.getApiManager())));
+        if (future == null) {
+            console.println("The bridge is not running or busy.");
+            return;
+        }
+
+        try {
+            future.get(READ_STATE_TIMEOUT_MSECS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException | TimeoutException e) {
+            future.cancel(false);
+            console.println("The bridge did not answer in time.");
+            return;
+        }
+        console.println(result.toString());
+    }
+
+    private static String getCapabilities(AirZoneApiManager apiManager) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-6s %-4s %-20s %-6s %-6s %-6s %-5s %-10s %-10s %-5s %-5s %-15s%n", "system",
+                "zone", "name", "master", "speeds", "double", "air-q", "slat-swing", "slat-pos", "eco", "anti",
+                "demands"));
+        for (AirZoneHvacZone zone : apiManager.getZones()) {
+            builder.append(String.format("%-6d %-4d %-20s %-6s %-6d %-6s %-5s %-10s %-10s %-5s %-5s %-15s%n",
+                    zone.getSystemID(), zone.getZoneID(), zone.getName(),
+                    yesNo(AirZoneApiManager.getIsMasterZone(zone)), Math.max(0, zone.getSpeeds().length - 1),
+                    yesNo(zone.getDoubleSetpoint() != 0), yesNo(zone.getAirQualityMode() != null),
+                    getPair(zone.getSlatsVSwing() != null, zone.getSlatsHSwing() != null),
+                    getPair(zone.getSlatsVertical() != null, zone.getSlatsHorizontal() != null),
+                    yesNo(zone.getEcoAdapt() != null), yesNo(zone.getAntiFreeze() != null), getDemands(zone)));
+        }
+
+        AirZoneHvacSystemsResponse systemsResponse = apiManager.getLatestSystemsResponse();
+        AirZoneHvacSystemInfo[] systems = (systemsResponse != null) ? systemsResponse.getSystems() : null;
+        if (systems != null) {
+            builder.append(String.format("%n%-6s %-5s %-5s%n", "system", "power", "meter"));
+            for (AirZoneHvacSystemInfo system : systems) {
+                builder.append(String.format("%-6d %-5s %-5s%n", system.getSystemID(),
+                        yesNo(system.getPower() != null), yesNo(system.getMc_connected() != 0)));
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String yesNo(boolean value) {
+        return value ? "yes" : "no";
+    }
+
+    private static String getPair(boolean vertical, boolean horizontal) {
+        return vertical ? (horizontal ? "both" : "vertical") : (horizontal ? "horizontal" : "no");
+    }
+
+    private static String getDemands(AirZoneHvacZone zone) {
+        List<String> demands = new ArrayList<>();
+        if (zone.getAirDemand() != null) {
+            demands.add("air");
+        }
+        if (zone.getFloorDemand() != null) {
+            demands.add("floor");
+        }
+        if (zone.getColdDemand() != null) {
+            demands.add("cold");
+        }
+        if (zone.getHeatDemand() != null) {
+            demands.add("heat");
+        }
+        return demands.isEmpty() ? "none" : String.join(",", demands);
+    }
+
+    /**
+     * Reads something from the latest known state of a bridge.
+     */
+    @FunctionalInterface
+    private interface StateReader {
+        String read(AirZoneApiManager apiManager);
+    }
+}
@@ -11,12 +11,13 @@
  */
 package com.obones.binding.airzone.internal.factory;
 
-import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.config.discovery.DiscoveryService;
 import org.openhab.core.i18n.LocaleProvider;
 import org.openhab.core.i18n.TranslationProvider;
@@ -42,6 +43,7 @@ import com.obones.binding.airzone.internal.handler.AirZoneBindingHandler;
 import com.obones.binding.airzone.internal.handler.AirZoneBridgeHandler;
 import com.obones.binding.airzone.internal.handler.AirZoneSystemThingHandler;
 import com.obones.binding.airzone.internal.handler.AirZoneZoneThingHandler;
+import com.obones.binding.airzone.internal.handler.utils.AirZoneDebouncer;
 import com.obones.binding.airzone.internal.utils.Localization;
 
 /**
@@ -55,14 +57,30 @@ import com.obones.binding.airzone.internal.utils.Localization;
 public class AirZoneHandlerFactory extends BaseThingHandlerFactory {
     private @NonNullByDefault({}) final Logger logger = LoggerFactory.getLogger(AirZoneHandlerFactory.class);
 
+    /**
+     * How long the handler counts must be stable before they are published to the binding things.
+     */
+    private static final long BINDING_STATE_QUIET_MSECS = 500L;
+
+    /**
+     * How long publishing the handler counts may be postponed by a steady stream of handler changes.
+     */
+    private static final long BINDING_STATE_MAX_DELAY_MSECS = 5000L;
+
     // Class internal
 
     private @Nullable ServiceRegistration<?> discoveryServiceRegistration = null;
     private @Nullable AirZoneDiscoveryService discoveryService = null;
 
-    private Set<AirZoneBindingHandler> airZoneBindingHandlers = new HashSet<>();
-    private Set<AirZoneBridgeHandler> airZoneBridgeHandlers = new HashSet<>();
-    private Set<AirZoneBaseThingHandler> airZoneThingHandlers = new HashSet<>();
+    // handlers are created and removed from several threads at the same time
+    private Set<AirZoneBindingHandler> airZoneBindingHandlers = ConcurrentHashMap.newKeySet();
+    private Set<AirZoneBridgeHandler> airZoneBridgeHandlers = ConcurrentHashMap.newKeySet();
+    private Set<AirZoneBaseThingHandler> airZoneThingHandlers = ConcurrentHashMap.newKeySet();
+
+    // loading many things at once must not rewrite the binding information for each of them
+    private final AirZoneDebouncer bindingStatePublisher = new AirZoneDebouncer(
+            ThreadPoolManager.getScheduledPool(ThreadPoolManager.THREAD_POOL_NAME_COMMON), BINDING_STATE_QUIET_MSECS,
+            BINDING_STATE_MAX_DELAY_MSECS, this::publishBindingState);
 
     private @NonNullByDefault({}) LocaleProvider localeProvider;
     private @NonNullByDefault({}) TranslationProvider i18nProvider;
@@ -135,8 +153,15 @@ public class AirZoneHandlerFactory extends BaseThingHandlerFactory {
     }
 
     private void updateBindingState() {
+        bindingStatePublisher.trigger();
+    }
+
+    private void publishBindingState() {
+        int bridgeCount = airZoneBridgeHandlers.size();
+        int thingCount = airZoneThingHandlers.size();
+        logger.trace("publishBindingState() called with {} bridges and {} things.", bridgeCount, thingCount);
         airZoneBindingHandlers.forEach((AirZoneBindingHandler airZoneBindingHandler) -> {
-            airZoneBindingHandler.updateBindingState(airZoneBridgeHandlers.size(), airZoneThingHandlers.size());
+            airZoneBindingHandler.updateBindingState(bridgeCount, thingCount);
         });
     }
 
@@ -241,6 +266,7 @@ public class AirZoneHandlerFactory extends BaseThingHandlerFactory {
     @Override
     protected void deactivate(ComponentContext componentContext) {
         activeInstance = null;
+        bindingStatePublisher.cancel();
         super.deactivate(componentContext);
     }
 
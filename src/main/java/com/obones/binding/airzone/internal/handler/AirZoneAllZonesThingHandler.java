@@ -12,6 +12,9 @@
  */
 package com.obones.binding.airzone.internal.handler;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.thing.ChannelUID;
@@ -56,6 +59,15 @@ public class AirZoneAllZonesThingHandler extends AirZoneBaseZoneThingHandler {
                 AirZoneBridgeHandler.getZoneUniqueId(config.systemId, 0));
     }
 
+    @Override
+    protected List<String> getOptionalChannelIds() {
+        List<String> channelIds = new ArrayList<>(List.of(AirZoneBindingConstants.CHANNEL_ZONE_ON_OFF,
+                AirZoneBindingConstants.CHANNEL_ZONE_MODE, AirZoneBindingConstants.CHANNEL_ZONE_HEAT_STAGE,
+                AirZoneBindingConstants.CHANNEL_ZONE_COLD_STAGE, AirZoneBindingConstants.CHANNEL_ZONE_SLEEP));
+        channelIds.addAll(super.getOptionalChannelIds());
+        return channelIds;
+    }
+
     @Override
     protected void createOptionalChannels(AirZoneHvacZone zone, ThingHandlerCallback callback, ThingBuilder builder,
             ThingUID thingUID, AutoUpdatePolicy autoUpdatePolicy) {
@@ -99,6 +111,12 @@ public class AirZoneAllZonesThingHandler extends AirZoneBaseZoneThingHandler {
         return true;
     }
 
+    @Override
+    protected boolean isOptimisticUpdateSupported(ChannelUID channelUID) {
+        // the channels are never refreshed, a predicted state could not be reconciled
+        return false;
+    }
+
     @Override
     public void refreshProperties(@Nullable AirZoneHvacZone zone) {
         // No properties to update
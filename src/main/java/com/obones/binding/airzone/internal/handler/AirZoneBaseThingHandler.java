@@ -13,15 +13,18 @@
 package com.obones.binding.airzone.internal.handler;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.config.core.Configuration;
+import org.openhab.core.library.types.QuantityType;
 import org.openhab.core.library.types.StringType;
 import org.openhab.core.thing.Bridge;
 import org.openhab.core.thing.Channel;
@@ -47,7 +50,10 @@ import org.slf4j.LoggerFactory;
 import com.google.gson.Gson;
 import com.obones.binding.airzone.internal.api.AirZoneApiManager;
 import com.obones.binding.airzone.internal.api.AirZoneDetailedErrors;
+import com.obones.binding.airzone.internal.api.AirZoneRequestSequence;
 import com.obones.binding.airzone.internal.api.model.AirZoneError;
+import com.obones.binding.airzone.internal.jfr.AirZoneCommandEvent;
+import com.obones.binding.airzone.internal.jfr.AirZoneFlightRecorder;
 import com.obones.binding.airzone.internal.utils.Localization;
 
 /***
@@ -59,8 +65,60 @@ import com.obones.binding.airzone.internal.utils.Localization;
 @NonNullByDefault
 public abstract class AirZoneBaseThingHandler extends BaseThingHandler {
     private @NonNullByDefault({}) final Logger logger = LoggerFactory.getLogger(AirZoneBaseThingHandler.class);
-    private @NonNullByDefault({}) Set<String> channelsInActionCommand = Collections
-            .synchronizedSet(new HashSet<String>());
+
+    /**
+     * The outcome of a command given to {@link #processCommand}.
+     */
+    public enum CommandResult {
+        /** the thing does not know the channel, the command is left to the bridge handler */
+        UNHANDLED,
+        /** the command was handled without sending anything to the web server */
+        NOT_SENT,
+        /** a request was sent to the web server */
+        SENT
+    }
+
+    /**
+     * A state published before the bridge confirmed it.
+     */
+    private static class PendingState {
+        private final Command command;
+        private final State predictedState;
+        private final long deadlineMsecs;
+        private volatile boolean sent = false;
+
+        private PendingState(Command command, State predictedState, long deadlineMsecs) {
+            this.command = command;
+            this.predictedState = predictedState;
+            this.deadlineMsecs = deadlineMsecs;
+        }
+    }
+
+    /**
+     * A command sent to the web server, waiting for the first state retrieved after it to tell if it was applied.
+     */
+    private static class SentCommand {
+        private final Command command;
+        private final long sequence;
+        private final long commandId;
+        private final long commandNanos;
+
+        private SentCommand(Command command, long sequence, long commandId, long commandNanos) {
+            this.command = command;
+            this.sequence = sequence;
+            this.commandId = commandId;
+            this.commandNanos = commandNanos;
+        }
+    }
+
+    private final Map<ChannelUID, PendingState> pendingStates = new ConcurrentHashMap<>();
+    private final Map<ChannelUID, SentCommand> sentCommands = new ConcurrentHashMap<>();
+
+    // number of states published by updateChannelState, for the metrics of the bridge
+    private final AtomicLong channelUpdateCount = new AtomicLong();
+
+    // set once the optional channels were created from the state known by the bridge
+    private volatile boolean optionalChannelsCreated = false;
     protected Localization localization;
     protected static final Gson gson = new Gson();
 
@@ -73,6 +131,7 @@ public abstract class AirZoneBaseThingHandler extends BaseThingHandler {
     @Override
     public void initialize() {
         logger.trace("initialize() called.");
+        optionalChannelsCreated = false;
         Bridge thisBridge = getBridge();
         logger.debug("initialize(): Initializing thing {} in combination with bridge {}.", getThing().getUID(),
                 thisBridge);
@@ -86,6 +145,14 @@ public abstract class AirZoneBaseThingHandler extends BaseThingHandler {
             initializeProperties();
             updateStatus(ThingStatus.ONLINE);
         } else {
+            // the state saved before a restart is enough to set the thing up while the bridge connects
+            BridgeHandler bridgeHandler = thisBridge.getHandler();
+            if ((bridgeHandler instanceof AirZoneBridgeHandler)
+                    && ((AirZoneBridgeHandler) bridgeHandler).hasKnownState()) {
+                logger.trace("initialize() creating channels from the restored bridge state.");
+                createOptionalChannels();
+                initializeProperties();
+            }
             logger.trace("initialize() updating ThingStatus to OFFLINE/BRIDGE_OFFLINE.");
             updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.BRIDGE_OFFLINE);
         }
@@ -115,11 +182,49 @@ public abstract class AirZoneBaseThingHandler extends BaseThingHandler {
             }
 
             createOptionalChannels(bridgeHandler);
+            optionalChannelsCreated = true;
         }
     }
 
     protected abstract void createOptionalChannels(AirZoneBridgeHandler bridgeHandler);
 
+    /**
+     * Updates the thing with the optional channels built by {@link #createOptionalChannels}, unless they are the
+     * same as the current ones. Updating the thing rewrites it in the registry and relinks its channels, this is
+     * avoided when the capabilities of the zone or system did not change.
+     *
+     * @param newThing the thing with its optional channels
+     * @return true if the thing was updated
+     */
+    protected boolean updateThingIfChanged(Thing newThing) {
+        List<Channel> currentChannels = thing.getChannels();
+        List<Channel> newChannels = newThing.getChannels();
+        boolean changed = currentChannels.size() != newChannels.size();
+        for (int i = 0; !changed && (i < newChannels.size()); i++) {
+            changed = !isSameChannel(currentChannels.get(i), newChannels.get(i));
+        }
+
+        if (!changed) {
+            logger.trace("updateThingIfChanged(): channels of {} are unchanged.", thing.getUID());
+            return false;
+        }
+        logger.debug("updateThingIfChanged(): channels of {} have changed, updating thing.", thing.getUID());
+        updateThing(newThing);
+        return true;
+    }
+
+    private static boolean isSameChannel(Channel current, Channel wanted) {
+        return current.getUID().equals(wanted.getUID())
+                && Objects.equals(current.getChannelTypeUID(), wanted.getChannelTypeUID())
+                && Objects.equals(current.getAcceptedItemType(), wanted.getAcceptedItemType())
+                && (current.getKind() == wanted.getKind()) && Objects.equals(current.getLabel(), wanted.getLabel())
+                && Objects.equals(current.getDescription(), wanted.getDescription())
+                && (current.getAutoUpdatePolicy() == wanted.getAutoUpdatePolicy())
+                && current.getDefaultTags().equals(wanted.getDefaultTags())
+                && current.getProperties().equals(wanted.getProperties())
+                && current.getConfiguration().equals(wanted.getConfiguration());
+    }
+
     protected ThingBuilder createOptionalChannel(ThingHandlerCallback callback, ThingBuilder builder, ThingUID thingUID,
             String ChannelId, ChannelTypeUID channelTypeUID, AutoUpdatePolicy autoUpdatePolicy,
             @Nullable String labelKey, @Nullable String descriptionKey) {
@@ -198,6 +303,11 @@ public abstract class AirZoneBaseThingHandler extends BaseThingHandler {
                 break;
 
             case ONLINE:
+                // the bridge was not online yet when this thing was initialized
+                if (!optionalChannelsCreated) {
+                    createOptionalChannels();
+                    initializeProperties();
+                }
                 updateStatus(ThingStatus.ONLINE, ThingStatusDetail.NONE);
                 break;
 
@@ -219,27 +329,195 @@ public abstract class AirZoneBaseThingHandler extends BaseThingHandler {
                 logger.trace("handleCommand() nothing yet to do as thing is not initialized.");
             } else {
                 AirZoneBridgeHandler bridgeHandler = (AirZoneBridgeHandler) handler;
-                AirZoneApiManager apiManager = bridgeHandler.getApiManager();
-
-                boolean commandHandled = false;
-                if (command instanceof RefreshType) {
-                    commandHandled = refreshChannel(channelUID, apiManager);
-                } else {
-                    channelsInActionCommand.add(channelUID.getAsString());
-                    try {
-                        commandHandled = handleActionCommand(channelUID, command, apiManager);
-                    } finally {
-                        channelsInActionCommand.remove(channelUID.getAsString());
-                    }
+                long commandId = AirZoneFlightRecorder.nextCommandId();
+                long commandNanos = System.nanoTime();
+                if (bridgeHandler.isOptimisticUpdates() && (command instanceof State)
+                        && isOptimisticUpdateSupported(channelUID)) {
+                    State predictedState = (State) command;
+                    pendingStates.put(channelUID, new PendingState(command, predictedState,
+                            System.currentTimeMillis() + bridgeHandler.getPendingStateTimeoutMsecs()));
+                    updateState(channelUID, predictedState);
                 }
+                bridgeHandler.handleThingCommand(this, channelUID, command, commandId, commandNanos);
+            }
+        }
+    }
+
+    /**
+     * Processes a command on the bridge actor thread, as posted by
+     * {@link AirZoneBridgeHandler#handleThingCommand handleThingCommand}.
+     *
+     * @param channelUID the {@link ChannelUID} of the channel to which the command was sent,
+     * @param command the {@link Command},
+     * @param commandId the identifier correlating the flight recorder events of the command,
+     * @param commandNanos the {@link System#nanoTime} at which the command was received,
+     * @param apiManager the {@link AirZoneApiManager} of the bridge.
+     * @return {@link CommandResult#UNHANDLED} if the command should be given to the bridge handler, otherwise
+     *         whether a request was sent to the web server.
+     */
+    protected CommandResult processCommand(ChannelUID channelUID, Command command, long commandId, long commandNanos,
+            AirZoneApiManager apiManager) {
+        if (command instanceof RefreshType) {
+            return refreshChannel(channelUID, apiManager) ? CommandResult.NOT_SENT : CommandResult.UNHANDLED;
+        }
+
+        // any snapshot requested before this point no longer reflects the value of the channel
+        AirZoneRequestSequence requestSequence = apiManager.getRequestSequence();
+        long commandSequence = requestSequence.issue();
+        requestSequence.commandSent(channelUID, commandSequence);
+        CommandResult result = handleActionCommand(channelUID, command, apiManager);
+        boolean sent = (result == CommandResult.SENT);
+        if (sent) {
+            sentCommands.put(channelUID, new SentCommand(command, commandSequence, commandId, commandNanos));
+        }
+
+        PendingState pendingState = pendingStates.get(channelUID);
+        if ((pendingState != null) && (pendingState.command == command)) {
+            pendingState.sent = true;
+        }
+        if (sent || (pendingState != null)) {
+            // the bridge has been told, reconcile with what it now reports, which the response to the command
+            // usually tells already
+            refreshChannel(channelUID, apiManager);
+        }
+        return result;
+    }
 
-                if (!commandHandled)
-                    bridgeHandler.handleCommand(channelUID, command);
+    /**
+     * To be called when a command will never reach the web server, because it was rejected, dropped, superseded or
+     * expired. The state published optimistically for it is replaced by the last known state of the channel, unless
+     * a newer command was received since.
+     *
+     * @param channelUID the {@link ChannelUID} of the channel to which the command was sent,
+     * @param command the {@link Command}.
+     */
+    protected void commandDiscarded(ChannelUID channelUID, Command command) {
+        PendingState pendingState = pendingStates.get(channelUID);
+        if ((pendingState != null) && (pendingState.command == command)
+                && pendingStates.remove(channelUID, pendingState)) {
+            logger.debug("Command {} for channel {} was not sent, reverting to the last known state.", command,
+                    channelUID.getAsString());
+            handleCommand(channelUID, RefreshType.REFRESH);
+        }
+    }
+
+    /**
+     * Indicates if the state of the given channel can be published as soon as a command is received, before the bridge
+     * confirms it.
+     *
+     * @param channelUID the {@link ChannelUID} of the channel
+     * @return true if refreshing the channel reports the state of the device
+     */
+    protected boolean isOptimisticUpdateSupported(ChannelUID channelUID) {
+        return true;
+    }
+
+    /**
+     * Publishes the state of a channel as given by the bridge, reconciling it with any state that was published
+     * optimistically: the predicted state is kept until the command is sent or its deadline has passed, and then
+     * replaced by the state of the device if they disagree.
+     *
+     * @param channelUID the {@link ChannelUID} of the channel
+     * @param newState the state as given by the bridge
+     */
+    protected void updateChannelState(ChannelUID channelUID, State newState) {
+        PendingState pendingState = pendingStates.get(channelUID);
+        if (pendingState != null) {
+            if (isSameState(pendingState.predictedState, newState)) {
+                logger.trace("updateChannelState(): predicted state {} of channel {} confirmed.", newState,
+                        channelUID.getAsString());
+                pendingStates.remove(channelUID, pendingState);
+            } else if (!pendingState.sent && (System.currentTimeMillis() < pendingState.deadlineMsecs)) {
+                logger.trace("updateChannelState(): channel {} waits for {} to be sent, ignoring {}.",
+                        channelUID.getAsString(), pendingState.predictedState, newState);
+                return;
+            } else {
+                logger.debug("Channel {} reports {} instead of the predicted {}, reverting.", channelUID.getAsString(),
+                        newState, pendingState.predictedState);
+                pendingStates.remove(channelUID, pendingState);
             }
         }
+        updateState(channelUID, newState);
+        channelUpdateCount.incrementAndGet();
+    }
+
+    public long getChannelUpdateCount() {
+        return channelUpdateCount.get();
+    }
+
+    /**
+     * Publishes the state of a channel as given by a snapshot, unless a command was sent to the channel after the
+     * request for that snapshot was issued, as it would then carry the value from before the command. The first
+     * snapshot requested after a command tells if the web server applied it.
+     *
+     * @param channelUID the {@link ChannelUID} of the channel
+     * @param newState the state as given by the snapshot
+     * @param snapshotSequence the sequence number at which the request for the snapshot was issued
+     */
+    protected void updateChannelState(ChannelUID channelUID, State newState, long snapshotSequence) {
+        AirZoneRequestSequence requestSequence = getRequestSequence();
+        if ((requestSequence != null) && !requestSequence.isSnapshotCurrent(channelUID, snapshotSequence)) {
+            logger.debug("Channel {} ignores {} from a snapshot requested before the latest command.",
+                    channelUID.getAsString(), newState);
+            return;
+        }
+
+        SentCommand sentCommand = sentCommands.get(channelUID);
+        if ((sentCommand != null) && (snapshotSequence > sentCommand.sequence)
+                && sentCommands.remove(channelUID, sentCommand)) {
+            boolean applied = !(sentCommand.command instanceof State)
+                    || isSameState((State) sentCommand.command, newState);
+            recordCommandStage(sentCommand.commandId, channelUID, sentCommand.command,
+                    applied ? AirZoneCommandEvent.STAGE_CONFIRMED : AirZoneCommandEvent.STAGE_REVERTED,
+                    sentCommand.commandNanos);
+        }
+        updateChannelState(channelUID, newState);
     }
 
-    protected abstract boolean handleActionCommand(ChannelUID channelUID, Command command,
+    /**
+     * Records a stage of the lifecycle of a command that was sent to a channel of this thing.
+     *
+     * @param commandId the identifier of the command
+     * @param channelUID the {@link ChannelUID} of the channel
+     * @param command the command
+     * @param stage the stage, one of the {@code STAGE_} constants of {@link AirZoneCommandEvent}
+     * @param commandNanos the {@link System#nanoTime} at which the command was received
+     */
+    protected void recordCommandStage(long commandId, ChannelUID channelUID, Command command, String stage,
+            long commandNanos) {
+        AirZoneFlightRecorder.commandStage(commandId, channelUID, command, stage, commandNanos);
+    }
+
+    /**
+     * Returns the sequence numbers of the requests issued by the bridge of this thing.
+     *
+     * @return the request sequence, null if the thing has no bridge
+     */
+    protected @Nullable AirZoneRequestSequence getRequestSequence() {
+        Bridge bridge = getBridge();
+        AirZoneBridgeHandler bridgeHandler = (bridge != null) ? (AirZoneBridgeHandler) bridge.getHandler() : null;
+        return (bridgeHandler != null) ? bridgeHandler.getApiManager().getRequestSequence() : null;
+    }
+
+    private static boolean isSameState(State predictedState, State actualState) {
+        if (predictedState.equals(actualState)) {
+            return true;
+        }
+
+        if ((predictedState instanceof QuantityType) && (actualState instanceof QuantityType)) {
+            QuantityType<?> actualQuantity = (QuantityType<?>) actualState;
+            QuantityType<?> predictedQuantity = ((QuantityType<?>) predictedState).toUnit(actualQuantity.getUnit());
+            return (predictedQuantity != null) && (predictedQuantity.doubleValue() == actualQuantity.doubleValue());
+        }
+
+        if ((predictedState instanceof Number) && (actualState instanceof Number)) {
+            return ((Number) predictedState).doubleValue() == ((Number) actualState).doubleValue();
+        }
+
+        return false;
+    }
+
+    protected abstract CommandResult handleActionCommand(ChannelUID channelUID, Command command,
             AirZoneApiManager apiManager);
 
     public abstract boolean refreshChannel(ChannelUID channelUID, AirZoneApiManager apiManager);
@@ -273,8 +551,4 @@ public abstract class AirZoneBaseThingHandler extends BaseThingHandler {
 
         return new StringType(gson.toJson(errors.toArray()));
     }
-
-    protected boolean channelIsInActionCommand(ChannelUID channelUID) {
-        return channelsInActionCommand.contains(channelUID.getAsString());
-    }
 }
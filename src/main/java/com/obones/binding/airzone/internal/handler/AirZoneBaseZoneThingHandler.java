@@ -12,14 +12,18 @@
  */
 package com.obones.binding.airzone.internal.handler;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.thing.Channel;
 import org.openhab.core.thing.ChannelUID;
 import org.openhab.core.thing.Thing;
 import org.openhab.core.thing.ThingUID;
 import org.openhab.core.thing.binding.ThingHandlerCallback;
+import org.openhab.core.thing.binding.builder.ChannelBuilder;
 import org.openhab.core.thing.binding.builder.ThingBuilder;
 import org.openhab.core.thing.type.AutoUpdatePolicy;
 import org.openhab.core.thing.type.ChannelTypeUID;
@@ -43,6 +47,11 @@ import com.obones.binding.airzone.internal.utils.Localization;
 public abstract class AirZoneBaseZoneThingHandler extends AirZoneBaseThingHandler {
     private @NonNullByDefault({}) final Logger logger = LoggerFactory.getLogger(AirZoneBaseZoneThingHandler.class);
 
+    private static final long UNKNOWN_CAPABILITIES = -1;
+
+    // capabilities of the zone the optional channels were last created for
+    private volatile long appliedCapabilities = UNKNOWN_CAPABILITIES;
+
     public AirZoneBaseZoneThingHandler(Thing thing, Localization localization) {
         super(thing, localization);
     }
@@ -53,6 +62,56 @@ public abstract class AirZoneBaseZoneThingHandler extends AirZoneBaseThingHandle
         return getZone(bridgeHandler.getApiManager());
     }
 
+    /**
+     * Returns the identifiers of all the channels that {@link #createOptionalChannels} may create, so that those the
+     * zone does not support anymore can be removed.
+     *
+     * @return the identifiers of the optional channels
+     */
+    protected List<String> getOptionalChannelIds() {
+        return List.of(AirZoneBindingConstants.CHANNEL_ZONE_FAN_SPEED, AirZoneBindingConstants.CHANNEL_ZONE_SETPOINT,
+                AirZoneBindingConstants.CHANNEL_ZONE_COOL_SETPOINT, AirZoneBindingConstants.CHANNEL_ZONE_HEAT_SETPOINT,
+                AirZoneBindingConstants.CHANNEL_ZONE_AIR_QUALITY_MODE,
+                AirZoneBindingConstants.CHANNEL_ZONE_AIR_QUALITY_LOW_THRESHOLD,
+                AirZoneBindingConstants.CHANNEL_ZONE_AIR_QUALITY_HIGH_THRESHOLD,
+                AirZoneBindingConstants.CHANNEL_ZONE_SLATS_VERTICAL_SWING,
+                AirZoneBindingConstants.CHANNEL_ZONE_SLATS_HORIZONTAL_SWING,
+                AirZoneBindingConstants.CHANNEL_ZONE_SLATS_HORIZONTAL_POSITION,
+                AirZoneBindingConstants.CHANNEL_ZONE_SLATS_VERTICAL_POSITION,
+                AirZoneBindingConstants.CHANNEL_ZONE_ECO_ADAPT, AirZoneBindingConstants.CHANNEL_ZONE_ANTI_FREEZE);
+    }
+
+    /**
+     * Returns the identifiers of the channels declared in the thing type that accept commands, which are given the
+     * same auto-update policy as the optional channels.
+     *
+     * @return the identifiers of the static command channels
+     */
+    protected List<String> getStaticCommandChannelIds() {
+        return List.of();
+    }
+
+    /**
+     * Returns the capabilities of the given zone that decide which optional channels are created, one bit each.
+     *
+     * @param zone the zone
+     * @return the capabilities of the zone
+     */
+    protected static long getCapabilities(AirZoneHvacZone zone) {
+        boolean[] capabilities = { zone.getSpeeds().length > 0, zone.getDoubleSetpoint() != 0,
+                zone.getAirQualityMode() != null, zone.getSlatsVSwing() != null, zone.getSlatsHSwing() != null,
+                zone.getSlatsHorizontal() != null, zone.getSlatsVertical() != null, zone.getEcoAdapt() != null,
+                zone.getAntiFreeze() != null, zone.getAirDemand() != null, zone.getFloorDemand() != null,
+                zone.getColdDemand() != null, zone.getHeatDemand() != null };
+        long value = 0;
+        for (int i = 0; i < capabilities.length; i++) {
+            if (capabilities[i]) {
+                value |= 1L << i;
+            }
+        }
+        return value;
+    }
+
     protected void createOptionalChannels(AirZoneHvacZone zone, ThingHandlerCallback callback, ThingBuilder builder,
             ThingUID thingUID, AutoUpdatePolicy autoUpdatePolicy) {
         // create speed channel if it can be set to any value
@@ -160,100 +219,120 @@ public abstract class AirZoneBaseZoneThingHandler extends AirZoneBaseThingHandle
         ThingBuilder builder = editThing();
         ThingUID thingUID = thing.getUID();
 
+        // start from scratch so that the channels for capabilities the zone lost are removed
+        for (String channelId : getOptionalChannelIds()) {
+            builder.withoutChannel(new ChannelUID(thingUID, channelId));
+        }
         createOptionalChannels(zone, callback, builder, thingUID, autoUpdatePolicy);
 
-        updateThing(builder.build());
+        // the policy depends on the bridge configuration, which the thing type cannot express, and the channels are
+        // replaced where they stand so that their order is kept
+        List<String> staticCommandChannelIds = getStaticCommandChannelIds();
+        List<Channel> channels = new ArrayList<>();
+        for (Channel channel : builder.build().getChannels()) {
+            if (staticCommandChannelIds.contains(channel.getUID().getId())
+                    && channel.getAutoUpdatePolicy() != autoUpdatePolicy) {
+                channel = ChannelBuilder.create(channel).withAutoUpdatePolicy(autoUpdatePolicy).build();
+            }
+            channels.add(channel);
+        }
+        builder.withChannels(channels);
+
+        updateThingIfChanged(builder.build());
+        appliedCapabilities = getCapabilities(zone);
     }
 
     @Override
-    protected boolean handleActionCommand(ChannelUID channelUID, Command command, AirZoneApiManager apiManager) {
+    protected CommandResult handleActionCommand(ChannelUID channelUID, Command command,
+            AirZoneApiManager apiManager) {
         logger.debug("handling action command {} for channel {}", command.toString(), channelUID.getAsString());
         String channelId = channelUID.getId();
+        boolean sent;
         switch (channelId) {
             case AirZoneBindingConstants.CHANNEL_ZONE_NAME:
-                apiManager.setZoneName(thing, command);
+                sent = apiManager.setZoneName(thing, command);
                 break;
 
             case AirZoneBindingConstants.CHANNEL_ZONE_ON_OFF:
-                apiManager.setZoneOnOff(thing, command);
+                sent = apiManager.setZoneOnOff(thing, command);
                 break;
 
             case AirZoneBindingConstants.CHANNEL_ZONE_SETPOINT:
-                apiManager.setZoneSetPoint(thing, command);
+                sent = apiManager.setZoneSetPoint(thing, command);
                 break;
 
             case AirZoneBindingConstants.CHANNEL_ZONE_COOL_SETPOINT:
-                apiManager.setZoneCoolSetPoint(thing, command);
+                sent = apiManager.setZoneCoolSetPoint(thing, command);
                 break;
 
             case AirZoneBindingConstants.CHANNEL_ZONE_HEAT_SETPOINT:
-                apiManager.setZoneHeatSetPoint(thing, command);
+                sent = apiManager.setZoneHeatSetPoint(thing, command);
                 break;
 
             case AirZoneBindingConstants.CHANNEL_ZONE_MODE:
-                apiManager.setZoneMode(thing, command);
+                sent = apiManager.setZoneMode(thing, command);
                 break;
 
             case AirZoneBindingConstants.CHANNEL_ZONE_FAN_SPEED:
-                apiManager.setZoneSpeed(thing, command);
+                sent = apiManager.setZoneSpeed(thing, command);
                 break;
 
             case AirZoneBindingConstants.CHANNEL_ZONE_COLD_STAGE:
-                apiManager.setZoneColdStage(thing, command);
+                sent = apiManager.setZoneColdStage(thing, command);
                 break;
 
             case AirZoneBindingConstants.CHANNEL_ZONE_HEAT_STAGE:
-                apiManager.setZoneHeatStage(thing, command);
+                sent = apiManager.setZoneHeatStage(thing, command);
                 break;
 
             case AirZoneBindingConstants.CHANNEL_ZONE_SLEEP:
-                apiManager.setZoneSleep(thing, command);
+                sent = apiManager.setZoneSleep(thing, command);
                 break;
 
             case AirZoneBindingConstants.CHANNEL_ZONE_AIR_QUALITY_MODE:
-                apiManager.setZoneAirQualityMode(thing, command);
+                sent = apiManager.setZoneAirQualityMode(thing, command);
                 break;
 
             case AirZoneBindingConstants.CHANNEL_ZONE_AIR_QUALITY_LOW_THRESHOLD:
-                apiManager.setZoneAirQualityLowThreshold(thing, command);
+                sent = apiManager.setZoneAirQualityLowThreshold(thing, command);
                 break;
 
             case AirZoneBindingConstants.CHANNEL_ZONE_AIR_QUALITY_HIGH_THRESHOLD:
-                apiManager.setZoneAirQualityHighThreshold(thing, command);
+                sent = apiManager.setZoneAirQualityHighThreshold(thing, command);
                 break;
 
             case AirZoneBindingConstants.CHANNEL_ZONE_SLATS_VERTICAL_SWING:
-                apiManager.setZoneVerticalSlatsSwing(thing, command);
+                sent = apiManager.setZoneVerticalSlatsSwing(thing, command);
                 break;
 
             case AirZoneBindingConstants.CHANNEL_ZONE_SLATS_HORIZONTAL_SWING:
-                apiManager.setZoneHorizontalSlatsSwing(thing, command);
+                sent = apiManager.setZoneHorizontalSlatsSwing(thing, command);
                 break;
 
             case AirZoneBindingConstants.CHANNEL_ZONE_SLATS_VERTICAL_POSITION:
-                apiManager.setZoneVerticalSlatsPosition(thing, command);
+                sent = apiManager.setZoneVerticalSlatsPosition(thing, command);
                 break;
 
             case AirZoneBindingConstants.CHANNEL_ZONE_SLATS_HORIZONTAL_POSITION:
-                apiManager.setZoneHorizontalSlatsPosition(thing, command);
+                sent = apiManager.setZoneHorizontalSlatsPosition(thing, command);
                 break;
 
             case AirZoneBindingConstants.CHANNEL_ZONE_ECO_ADAPT:
-                apiManager.setEcoAdapt(thing, command);
+                sent = apiManager.setEcoAdapt(thing, command);
                 break;
 
             case AirZoneBindingConstants.CHANNEL_ZONE_ANTI_FREEZE:
-                apiManager.setAntiFreeze(thing, command);
+                sent = apiManager.setAntiFreeze(thing, command);
                 break;
 
             default:
                 logger.debug("Don't know how to handle action command {} for channel {}", command.toString(),
                         channelUID.getAsString());
-                return false;
+                return CommandResult.UNHANDLED;
         }
 
         logger.debug("Done handling action command {} for channel {}", command.toString(), channelUID.getAsString());
-        return true;
+        return sent ? CommandResult.SENT : CommandResult.NOT_SENT;
     }
 
     public abstract void refreshProperties(@Nullable AirZoneHvacZone zone);
@@ -272,6 +351,15 @@ public abstract class AirZoneBaseZoneThingHandler extends AirZoneBaseThingHandle
         AirZoneHvacZone zone = getZone(apiManager);
 
         if (zone != null) {
+            // the zone may only be known now, or may have new capabilities after a firmware update
+            long capabilities = getCapabilities(zone);
+            if (capabilities != appliedCapabilities) {
+                if (appliedCapabilities != UNKNOWN_CAPABILITIES) {
+                    logger.info("Capabilities of zone {} have changed, updating its channels.", thing.getUID());
+                }
+                createOptionalChannels();
+            }
+
             refreshProperties(zone);
 
             for (ChannelUID uid : linkedChannelsUIDs) {
@@ -212,6 +212,10 @@ public class AirZoneBindingHandler extends BaseThingHandler {
      *            BindingInformation).
      */
     public void updateBindingState(Integer airZoneBridgeCount, Integer airZoneThingCount) {
+        if (airZoneBridgeCount.equals(currentNumberOfBridges) && airZoneThingCount.equals(currentNumberOfThings)) {
+            logger.trace("updateBindingState(): nothing changed.");
+            return;
+        }
         currentNumberOfBridges = airZoneBridgeCount;
         currentNumberOfThings = airZoneThingCount;
         updateVisibleInformation();
@@ -15,36 +15,68 @@ package com.obones.binding.airzone.internal.handler;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.core.common.NamedThreadFactory;
+import org.openhab.core.config.core.Configuration;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.library.unit.Units;
 import org.openhab.core.thing.Bridge;
 import org.openhab.core.thing.Channel;
 import org.openhab.core.thing.ChannelUID;
 import org.openhab.core.thing.Thing;
 import org.openhab.core.thing.ThingStatus;
 import org.openhab.core.thing.ThingStatusDetail;
+import org.openhab.core.thing.ThingUID;
 import org.openhab.core.thing.binding.BaseBridgeHandler;
 import org.openhab.core.thing.binding.ThingHandler;
+import org.openhab.core.thing.binding.ThingHandlerCallback;
+import org.openhab.core.thing.binding.builder.ChannelBuilder;
+import org.openhab.core.thing.binding.builder.ThingBuilder;
+import org.openhab.core.thing.type.ChannelTypeUID;
 import org.openhab.core.types.Command;
 import org.openhab.core.types.RefreshType;
+import org.openhab.core.types.UnDefType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.obones.binding.airzone.internal.AirZoneBinding;
 import com.obones.binding.airzone.internal.AirZoneBindingConstants;
 import com.obones.binding.airzone.internal.api.AirZoneApiManager;
+import com.obones.binding.airzone.internal.api.AirZoneApiStatistics;
 import com.obones.binding.airzone.internal.config.AirZoneBridgeConfiguration;
 import com.obones.binding.airzone.internal.discovery.AirZoneDiscoveryService;
 import com.obones.binding.airzone.internal.factory.AirZoneHandlerFactory;
+import com.obones.binding.airzone.internal.handler.AirZoneBaseThingHandler.CommandResult;
+import com.obones.binding.airzone.internal.handler.utils.AirZoneBridgeActor;
+import com.obones.binding.airzone.internal.handler.utils.AirZoneBridgeActor.DiscardedException;
+import com.obones.binding.airzone.internal.handler.utils.AirZoneBridgeActor.MessageType;
+import com.obones.binding.airzone.internal.handler.utils.AirZoneBridgeActor.OverflowPolicy;
+import com.obones.binding.airzone.internal.handler.utils.AirZonePollCadence;
+import com.obones.binding.airzone.internal.jfr.AirZoneCommandEvent;
+import com.obones.binding.airzone.internal.jfr.AirZoneFlightRecorder;
+import com.obones.binding.airzone.internal.jfr.AirZonePollEvent;
+import com.obones.binding.airzone.internal.metrics.AirZoneMetrics;
 import com.obones.binding.airzone.internal.utils.Localization;
+import com.obones.binding.airzone.internal.utils.SnapshotStore;
+import com.obones.binding.airzone.internal.utils.VirtualThreads;
 
 /**
  * <B>Common interaction with the </B><I>AirZone</I><B> bridge.</B>
@@ -68,20 +100,12 @@ import com.obones.binding.airzone.internal.utils.Localization;
  */
 @NonNullByDefault
 public class AirZoneBridgeHandler extends BaseBridgeHandler {
-
-    /*
-     * a modifier string to avoid the (small) risk of other tasks (outside this binding) locking on the same ip address
-     * Strings.intern() object
-     *
-     */
-    private static final String LOCK_MODIFIER = "airzone.ipaddr.";
-
     private @NonNullByDefault({}) final Logger logger = LoggerFactory.getLogger(AirZoneBridgeHandler.class);
 
     // Class internal
 
     /**
-     * Scheduler for continuous refresh by scheduleWithFixedDelay.
+     * Scheduler for the next refresh, each refresh schedules the following one as given by {@link #pollCadence}.
      */
     private @Nullable ScheduledFuture<?> refreshSchedulerJob = null;
 
@@ -91,18 +115,61 @@ public class AirZoneBridgeHandler extends BaseBridgeHandler {
     private int refreshCounter = 0;
 
     /**
-     * Dedicated task executor for the long-running bridge communication tasks.
+     * Actor serializing all the communications with the bridge: polls, commands, refreshes and (re)configuration are
+     * posted as messages into its mailbox and processed one at a time on its dedicated thread, which is interrupted on
+     * disposal.
      *
-     * Note: there is no point in using multi threaded thread-pool here, since all the submitted (Runnable) tasks are
-     * anyway forced to go through the same serial pipeline, because they all call the same class level "synchronized"
-     * method to actually communicate with the AirZone bridge via its one single TCP socket connection
+     * Note: there is no point in processing several messages in parallel, the AirZone bridge is a fragile web server
+     * that must be given some time to breathe between requests.
+     */
+    private @Nullable AirZoneBridgeActor actor = null;
+
+    /**
+     * Maximum time {@link #dispose} waits for the actor to abort the communication in progress.
+     */
+    private static final long DISPOSE_TIMEOUT_MSECS = 2000L;
+
+    /**
+     * Minimum time between two saves of the latest known state, to spare the storage of small systems.
+     */
+    private static final long SNAPSHOT_SAVE_INTERVAL_MSECS = 300000L;
+
+    /**
+     * Maximum number of requests of a latency measurement, each of them being paced like any other request.
+     */
+    public static final int LATENCY_MAX_SAMPLES = 20;
+
+    /**
+     * Maximum duration of a latency measurement, including the pacing and the queue, after which it stops with the
+     * samples taken so far.
      */
-    private @Nullable ExecutorService communicationsJobExecutor = null;
+    public static final long LATENCY_MAX_DURATION_MSECS = 120000L;
+
+    /**
+     * Told about each request of a latency measurement, as soon as it is done.
+     */
+    @FunctionalInterface
+    public interface LatencyListener {
+        /**
+         * @param sample the number of the request, starting at 1
+         * @param samples the number of requests of the measurement
+         * @param roundTripNanos the round trip time of the request, -1 if it was not answered
+         */
+        void sampleDone(int sample, int samples, long roundTripNanos);
+    }
+
+    private @Nullable SnapshotStore snapshotStore = null;
+    private long snapshotSavedMsecs = 0;
+
     private @Nullable NamedThreadFactory threadFactory = null;
     private @Nullable AirZoneDiscoveryService discoveryService = null;
 
     private boolean disposing = false;
 
+    // channel updates emitted by the things of this bridge, during the latest poll and since the bridge started
+    private volatile long cycleChannelUpdates = 0;
+    private volatile long totalChannelUpdates = 0;
+
     /*
      * **************************************
      * ***** Default visibility Objects *****
@@ -117,8 +184,16 @@ public class AirZoneBridgeHandler extends BaseBridgeHandler {
 
     private AirZoneApiManager apiManager = new AirZoneApiManager(airZoneBridgeConfiguration);
 
+    private AirZonePollCadence pollCadence = new AirZonePollCadence(airZoneBridgeConfiguration.refreshMsecs,
+            airZoneBridgeConfiguration.fastRefreshMsecs, airZoneBridgeConfiguration.maxRefreshMsecs);
+
     private int initializeRetriesDone = 0;
 
+    /**
+     * Time at which {@link #initialize} was called, 0 once the first state was retrieved from the web server.
+     */
+    private volatile long initializeStartNanos = 0;
+
     /*
      * ************************
      * ***** Constructors *****
@@ -135,6 +210,99 @@ public class AirZoneBridgeHandler extends BaseBridgeHandler {
         return apiManager;
     }
 
+    public @Nullable AirZoneBridgeActor getActor() {
+        return actor;
+    }
+
+    public long getCycleChannelUpdates() {
+        return cycleChannelUpdates;
+    }
+
+    public long getTotalChannelUpdates() {
+        return totalChannelUpdates;
+    }
+
+    /**
+     * Measures the round trip time of the web server with a series of requests. They are posted to the actor as
+     * probes so that they are paced like any other request and never overlap with the polls or the commands, while
+     * being left out of the request statistics of the bridge.
+     * <P>
+     * The measurement is limited to {@link #LATENCY_MAX_SAMPLES} requests and stops once
+     * {@link #LATENCY_MAX_DURATION_MSECS} have elapsed.
+     *
+     * @param resourceName the resource to query, either "version" or "hvac"
+     * @param count the number of requests
+     * @param listener told about each request once it is done
+     * @return the round trip times, in nanoseconds, of the requests that were answered
+     * @throws IOException if the bridge is not running or cannot accept the requests
+     * @throws InterruptedException if interrupted while waiting for a request
+     */
+    public List<Long> measureLatency(String resourceName, int count, LatencyListener listener)
+            throws IOException, InterruptedException {
+        int samples = Math.min(count, LATENCY_MAX_SAMPLES);
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LATENCY_MAX_DURATION_MSECS);
+        List<Long> roundTrips = new ArrayList<>();
+        for (int sample = 1; sample <= samples; sample++) {
+            long remainingMsecs = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+            if (remainingMsecs <= 0) {
+                logger.debug("measureLatency(): time is up after {} {} requests.", sample - 1, resourceName);
+                break;
+            }
+
+            AtomicLong roundTrip = new AtomicLong(-1);
+            AirZoneBridgeActor actor = this.actor;
+            CompletableFuture<@Nullable Void> future = (actor == null) ? null
+                    : actor.submit(MessageType.PROBE, null, remainingMsecs, () -> {
+                        try {
+                            roundTrip.set(apiManager.measureRoundTrip(resourceName));
+                        } catch (IOException e) {
+                            logger.debug("measureLatency(): {} request failed: {}", resourceName, e.getMessage());
+                        }
+                    });
+            if (future == null) {
+                throw new IOException("bridge " + getThing().getUID() + " is not running or busy");
+            }
+            try {
+                future.get(remainingMsecs, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | TimeoutException | CancellationException e) {
+                future.cancel(false);
+                logger.debug("measureLatency(): {} request not processed: {}", resourceName, e.toString());
+            }
+
+            long roundTripNanos = roundTrip.get();
+            if (roundTripNanos >= 0) {
+                roundTrips.add(roundTripNanos);
+            }
+            listener.sampleDone(sample, samples, roundTripNanos);
+        }
+        return roundTrips;
+    }
+
+    public boolean isOptimisticUpdates() {
+        return airZoneBridgeConfiguration.optimisticUpdates;
+    }
+
+    /**
+     * Returns how long a state published before its command is sent waits for it: the command may wait for the
+     * command timeout before being sent, and its outcome is known after the next poll at the latest.
+     *
+     * @return the delay in milliseconds
+     */
+    public long getPendingStateTimeoutMsecs() {
+        return airZoneBridgeConfiguration.commandTimeoutMsecs
+                + pollCadence.getNextDelayMsecs(System.currentTimeMillis());
+    }
+
+    /**
+     * Indicates if the zones and systems are known, either retrieved from the web server or restored from the state
+     * saved before a restart, so that the things can be set up without waiting for the web server.
+     *
+     * @return true if the zones and systems are known
+     */
+    public boolean hasKnownState() {
+        return apiManager.hasZones() || apiManager.isSnapshotStale();
+    }
+
     // Provisioning/Deprovisioning methods *****
 
     @Override
@@ -151,96 +319,249 @@ public class AirZoneBridgeHandler extends BaseBridgeHandler {
         logger.trace("initialize(): initialize bridge configuration parameters.");
         airZoneBridgeConfiguration = new AirZoneBinding(getConfigAs(AirZoneBridgeConfiguration.class)).checked();
         apiManager = new AirZoneApiManager(airZoneBridgeConfiguration);
+        pollCadence = new AirZonePollCadence(airZoneBridgeConfiguration.refreshMsecs,
+                airZoneBridgeConfiguration.fastRefreshMsecs, airZoneBridgeConfiguration.maxRefreshMsecs);
+        createDiagnosticChannels(airZoneBridgeConfiguration.diagnosticChannels);
+
+        // the state saved before the restart is shown until the web server answers
+        SnapshotStore snapshotStore = new SnapshotStore(getThing().getUID());
+        this.snapshotStore = snapshotStore;
+        snapshotSavedMsecs = System.currentTimeMillis();
+        String snapshot = snapshotStore.load();
+        if ((snapshot != null) && apiManager.importSnapshot(snapshot, snapshotStore.getSavedTime())) {
+            logger.debug("initialize(): restored the state of bridge {} saved at {}.", getThing().getUID(),
+                    apiManager.getRestoredSnapshotTime());
+            updateStatus(ThingStatus.UNKNOWN, ThingStatusDetail.NONE, "@text/status.airzone.bridge.snapshot-restored");
+        }
 
         initializeRetriesDone = 0;
-
-        scheduler.execute(() -> {
-            disposing = false;
-            initializeSchedulerJob();
-        });
+        initializeStartNanos = System.nanoTime();
+        disposing = false;
+
+        AirZoneBridgeActor actor = new AirZoneBridgeActor(getThing().getUID().getAsString(),
+                getCommunicationsThreadFactory(), airZoneBridgeConfiguration.commandQueueCapacity,
+                getOverflowPolicy(airZoneBridgeConfiguration));
+        this.actor = actor;
+        AirZoneMetrics.bridgeAdded(this);
+        actor.post(MessageType.RECONFIGURE, () -> initializeSchedulerJob(actor));
     }
 
     /**
-     * Various initialization actions to be executed on a background thread
+     * Various initialization actions to be executed on the actor thread
+     *
+     * @param actor the actor this initialization was posted to
      */
-    private void initializeSchedulerJob() {
-        /*
-         * synchronize disposeSchedulerJob() and initializeSchedulerJob() based an IP address Strings.intern() object to
-         * prevent overlap of initialization and disposal communications towards the same physical bridge
-         */
-        synchronized (LOCK_MODIFIER.concat(airZoneBridgeConfiguration.ipAddress).intern()) {
-            logger.trace("initializeSchedulerJob(): adopt new bridge configuration parameters.");
-            bridgeParamsUpdated();
+    private void initializeSchedulerJob(AirZoneBridgeActor actor) {
+        if (actor != this.actor) {
+            logger.trace("initializeSchedulerJob(): handler was re-initialized or disposed, nothing to do.");
+            return;
+        }
 
-            if ((thing.getStatus() == ThingStatus.OFFLINE)
-                    && (thing.getStatusInfo().getStatusDetail() == ThingStatusDetail.COMMUNICATION_ERROR)) {
-                if (initializeRetriesDone <= airZoneBridgeConfiguration.retries) {
-                    initializeRetriesDone++;
-                    scheduler.schedule(() -> initializeSchedulerJob(),
-                            ((long) Math.pow(2, initializeRetriesDone) * airZoneBridgeConfiguration.timeoutMsecs),
-                            TimeUnit.MILLISECONDS);
-                }
-                return;
+        if (apiManager.isSnapshotStale()) {
+            logger.trace("initializeSchedulerJob(): publish the restored state.");
+            doDiscovery();
+            syncChannelsWithProducts();
+        }
+
+        logger.trace("initializeSchedulerJob(): adopt new bridge configuration parameters.");
+        if (!isReachable()) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR);
+            if (initializeRetriesDone <= airZoneBridgeConfiguration.retries) {
+                initializeRetriesDone++;
+                long delayMsecs = Math.min((1L << initializeRetriesDone) * airZoneBridgeConfiguration.timeoutMsecs,
+                        airZoneBridgeConfiguration.maxRefreshMsecs);
+                scheduler.schedule(() -> actor.post(MessageType.RECONFIGURE, () -> initializeSchedulerJob(actor)),
+                        delayMsecs, TimeUnit.MILLISECONDS);
+            } else {
+                // the regular polling takes over, the web server is probed less and less often until it answers
+                logger.debug("initializeSchedulerJob(): bridge {} still not reachable after {} retries.",
+                        getThing().getUID(), initializeRetriesDone);
+                schedulePoll(actor, airZoneBridgeConfiguration.refreshMsecs);
             }
+            return;
+        }
+        resetProperties();
+        airZoneBridgeConfiguration.hasChanged = false;
 
-            long mSecs = airZoneBridgeConfiguration.refreshMSecs;
-            logger.trace("initializeSchedulerJob(): scheduling refresh at {} milliseconds.", mSecs);
-            refreshSchedulerJob = scheduler.scheduleWithFixedDelay(() -> {
-                refreshSchedulerJob();
-            }, mSecs, mSecs, TimeUnit.MILLISECONDS);
+        // retrieve the version and the state right away instead of waiting for a full refresh interval
+        refreshSchedulerJob();
+        if (!apiManager.hasZones() && !apiManager.isCircuitOpen()) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR);
+        }
 
-            AirZoneHandlerFactory.refreshBindingInfo();
+        // the optional channels created by the things once the bridge is online get their state at the next poll
+        schedulePoll(actor, apiManager.isCircuitOpen() ? apiManager.getNextProbeDelayMsecs()
+                : airZoneBridgeConfiguration.fastRefreshMsecs);
 
-            if (logger.isDebugEnabled()) {
-                logger.debug("AirZone Bridge '{}' is initialized.", getThing().getUID());
-            }
+        AirZoneHandlerFactory.refreshBindingInfo();
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("AirZone Bridge '{}' is initialized.", getThing().getUID());
         }
     }
 
     @Override
     public void dispose() {
-        scheduler.submit(() -> {
-            disposing = true;
+        disposing = true;
+        AirZoneMetrics.bridgeRemoved(this);
+
+        AirZoneBridgeActor actor = this.actor;
+        this.actor = null;
+
+        /*
+         * cancel the regular refresh polling job right away so that it cannot post to a disposed actor
+         */
+        ScheduledFuture<?> refreshSchedulerJob = this.refreshSchedulerJob;
+        if (refreshSchedulerJob != null) {
+            logger.trace("dispose(): cancel the refresh polling job.");
+            refreshSchedulerJob.cancel(false);
+            this.refreshSchedulerJob = null;
+        }
+
+        /*
+         * the teardown only runs once the actor is gone, as nothing else modifies the latest known state then; the
+         * manager and store are those of this run, a new initialization may replace them in the meantime
+         */
+        AirZoneApiManager apiManager = this.apiManager;
+        SnapshotStore snapshotStore = this.snapshotStore;
+        Runnable teardown = () -> {
+            apiManager.close();
+            if (snapshotStore != null) {
+                saveSnapshot(apiManager, snapshotStore);
+            }
             disposeSchedulerJob();
-        });
+        };
+        if (actor == null) {
+            teardown.run();
+            return;
+        }
+
+        /*
+         * abort the request in progress and wait for the actor, but not longer than a bounded time so that a restart
+         * of the bridge is not delayed by an unresponsive web server
+         */
+        actor.whenTerminated(teardown);
+        if (!actor.stop(DISPOSE_TIMEOUT_MSECS)) {
+            logger.debug("dispose(): communications of bridge {} are still being aborted, teardown postponed.",
+                    getThing().getUID());
+        }
+    }
+
+    @Override
+    public void handleRemoval() {
+        new SnapshotStore(getThing().getUID()).delete();
+        super.handleRemoval();
     }
 
     /**
-     * Various disposal actions to be executed on a background thread
+     * Saves the latest known state so that it can be shown right away after a restart.
+     *
+     * @param force true to save it even if it was saved recently
+     */
+    private void saveSnapshot(boolean force) {
+        SnapshotStore snapshotStore = this.snapshotStore;
+        long now = System.currentTimeMillis();
+        if ((snapshotStore == null) || (!force && (now - snapshotSavedMsecs < SNAPSHOT_SAVE_INTERVAL_MSECS))) {
+            return;
+        }
+
+        if (saveSnapshot(apiManager, snapshotStore)) {
+            snapshotSavedMsecs = now;
+        }
+    }
+
+    private static boolean saveSnapshot(AirZoneApiManager apiManager, SnapshotStore snapshotStore) {
+        String snapshot = apiManager.exportSnapshot();
+        if (snapshot == null) {
+            return false;
+        }
+        snapshotStore.save(snapshot);
+        return true;
+    }
+
+    /**
+     * Various disposal actions to be executed once the actor has stopped
      */
     private void disposeSchedulerJob() {
-        /*
-         * synchronize disposeSchedulerJob() and initializeSchedulerJob() based an IP address Strings.intern() object to
-         * prevent overlap of initialization and disposal communications towards the same physical bridge
-         */
-        synchronized (LOCK_MODIFIER.concat(airZoneBridgeConfiguration.ipAddress).intern()) {
-            /*
-             * cancel the regular refresh polling job
-             */
-            ScheduledFuture<?> refreshSchedulerJob = this.refreshSchedulerJob;
-            if (refreshSchedulerJob != null) {
-                logger.trace("disposeSchedulerJob(): cancel the refresh polling job.");
-                refreshSchedulerJob.cancel(false);
-            }
+        logger.trace("disposeSchedulerJob(): shut down JSON connection interface.");
+        AirZoneHandlerFactory.refreshBindingInfo();
+        logger.debug("AirZone Bridge '{}' is shut down.", getThing().getUID());
+    }
 
-            ExecutorService commsJobExecutor = this.communicationsJobExecutor;
-            if (commsJobExecutor != null) {
-                this.communicationsJobExecutor = null;
-                logger.trace("disposeSchedulerJob(): cancel any other scheduled jobs.");
-                /*
-                 * remove un-started communication tasks from the execution queue; and stop accepting more tasks
-                 */
-                commsJobExecutor.shutdownNow();
-            }
+    /**
+     * Applies the new configuration parameters live, keeping the connection, the latest known state of the
+     * installation and the child things. Only the parameters that cannot be changed on a running bridge, namely its
+     * address and the kind of thread it uses, go through a full re-initialization.
+     */
+    @Override
+    public void handleConfigurationUpdate(Map<String, Object> configurationParameters) {
+        AirZoneBridgeActor actor = this.actor;
+        if (!isInitialized() || (actor == null)) {
+            super.handleConfigurationUpdate(configurationParameters);
+            return;
+        }
 
-            /*
-            /*
-             * finally clean up everything else
-             */
-            logger.trace("disposeSchedulerJob(): shut down JSON connection interface.");
-            AirZoneHandlerFactory.refreshBindingInfo();
-            logger.debug("AirZone Bridge '{}' is shut down.", getThing().getUID());
+        validateConfigurationParameters(configurationParameters);
+        Configuration configuration = editConfiguration();
+        for (Entry<String, Object> configurationParameter : configurationParameters.entrySet()) {
+            logger.trace("handleConfigurationUpdate(): found modified config entry {}.",
+                    configurationParameter.getKey());
+            configuration.put(configurationParameter.getKey(), configurationParameter.getValue());
+        }
+        AirZoneBridgeConfiguration newConfiguration = new AirZoneBinding(
+                configuration.as(AirZoneBridgeConfiguration.class)).checked();
+
+        if (!newConfiguration.ipAddress.equals(airZoneBridgeConfiguration.ipAddress)
+                || (newConfiguration.tcpPort != airZoneBridgeConfiguration.tcpPort)
+                || (newConfiguration.virtualThreads != airZoneBridgeConfiguration.virtualThreads)) {
+            logger.debug("handleConfigurationUpdate(): bridge {} must reconnect.", getThing().getUID());
+            super.handleConfigurationUpdate(configurationParameters);
+            return;
         }
+
+        updateConfiguration(configuration);
+        // the connection is unchanged, there is no need to check it again
+        newConfiguration.hasChanged = false;
+        actor.post(MessageType.RECONFIGURE, () -> reconfigureSchedulerJob(actor, newConfiguration));
+    }
+
+    /**
+     * Applies new configuration parameters on the actor thread, so that no communication ever sees a mix of the old
+     * and new parameters.
+     *
+     * @param actor the actor this reconfiguration was posted to
+     * @param newConfiguration the validated configuration, with the same address as the current one
+     */
+    private void reconfigureSchedulerJob(AirZoneBridgeActor actor, AirZoneBridgeConfiguration newConfiguration) {
+        if (actor != this.actor) {
+            logger.trace("reconfigureSchedulerJob(): handler was re-initialized or disposed, nothing to do.");
+            return;
+        }
+
+        if (newConfiguration.diagnosticChannels != airZoneBridgeConfiguration.diagnosticChannels) {
+            createDiagnosticChannels(newConfiguration.diagnosticChannels);
+        }
+        airZoneBridgeConfiguration = newConfiguration;
+        apiManager.reconfigure(newConfiguration);
+        pollCadence = new AirZonePollCadence(newConfiguration.refreshMsecs, newConfiguration.fastRefreshMsecs,
+                newConfiguration.maxRefreshMsecs);
+        actor.setCommandQueueBounds(newConfiguration.commandQueueCapacity, getOverflowPolicy(newConfiguration));
+
+        // a poll that is already waiting in the mailbox will schedule the next one with the new cadence by itself
+        long delayMsecs = pollCadence.getNextDelayMsecs(System.currentTimeMillis());
+        ScheduledFuture<?> refreshSchedulerJob = this.refreshSchedulerJob;
+        if ((refreshSchedulerJob != null) && refreshSchedulerJob.cancel(false)) {
+            long remainingMsecs = Math.max(0, refreshSchedulerJob.getDelay(TimeUnit.MILLISECONDS));
+            schedulePoll(actor, Math.min(delayMsecs, remainingMsecs));
+        }
+
+        logger.debug("AirZone Bridge '{}' is reconfigured.", getThing().getUID());
+    }
+
+    private static OverflowPolicy getOverflowPolicy(AirZoneBridgeConfiguration configuration) {
+        return AirZoneBridgeConfiguration.COMMAND_QUEUE_OVERFLOW_REJECT.equals(configuration.commandQueueOverflow)
+                ? OverflowPolicy.REJECT
+                : OverflowPolicy.DROP_OLDEST;
     }
 
     /**
@@ -273,12 +594,7 @@ public class AirZoneBridgeHandler extends BaseBridgeHandler {
     private void bridgeParamsUpdated() {
         logger.debug("bridgeParamsUpdated() called.");
 
-        // do not use InetAddress.isReachable, the AirZone server does not respond to ping
-        try (Socket soc = new Socket())
-        {
-            soc.connect(new InetSocketAddress(airZoneBridgeConfiguration.ipAddress, airZoneBridgeConfiguration.tcpPort), airZoneBridgeConfiguration.timeoutMsecs);
-        } catch (IOException ex) {
-            logger.error("bridgeParamsUpdated(): Bridge ip address {}:{} not reachable with {} timeout: {}.", airZoneBridgeConfiguration.ipAddress, airZoneBridgeConfiguration.tcpPort, airZoneBridgeConfiguration.timeoutMsecs, ex.getMessage());
+        if (!isReachable()) {
             updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR);
             return;
         }
@@ -291,23 +607,220 @@ public class AirZoneBridgeHandler extends BaseBridgeHandler {
         logger.trace("bridgeParamsUpdated() successfully finished.");
     }
 
+    /**
+     * Reports how long it took to get the first state from the web server and brings the bridge online, which lets
+     * the things create their optional channels from that state.
+     */
+    private void firstStateRetrieved() {
+        long timeToFirstStateMsecs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - initializeStartNanos);
+        initializeStartNanos = 0;
+
+        logger.debug("AirZone Bridge '{}' retrieved its first state {} ms after its initialization.",
+                getThing().getUID(), timeToFirstStateMsecs);
+        thing.setProperty(AirZoneBindingConstants.PROPERTY_BRIDGE_TIME_TO_FIRST_STATE,
+                Long.toString(timeToFirstStateMsecs));
+        updateStatus(ThingStatus.ONLINE);
+    }
+
+    /**
+     * Checks that the web server accepts connections.
+     *
+     * @return true if the web server is reachable
+     */
+    private boolean isReachable() {
+        // do not use InetAddress.isReachable, the AirZone server does not respond to ping
+        try (Socket soc = new Socket())
+        {
+            soc.connect(new InetSocketAddress(airZoneBridgeConfiguration.ipAddress, airZoneBridgeConfiguration.tcpPort), airZoneBridgeConfiguration.timeoutMsecs);
+            return true;
+        } catch (IOException ex) {
+            logger.error("isReachable(): Bridge ip address {}:{} not reachable with {} timeout: {}.", airZoneBridgeConfiguration.ipAddress, airZoneBridgeConfiguration.tcpPort, airZoneBridgeConfiguration.timeoutMsecs, ex.getMessage());
+            return false;
+        }
+    }
+
     // Continuous synchronization methods
 
-    private synchronized void refreshSchedulerJob() {
+    /**
+     * Schedules the next poll, which will itself schedule the following one with the delay given by the cadence.
+     * The scheduler only posts the poll message, the actual I/O happens on the actor thread.
+     *
+     * @param actor the actor to post the poll message to
+     * @param delayMsecs the delay before the poll, in milliseconds
+     */
+    private void schedulePoll(AirZoneBridgeActor actor, long delayMsecs) {
+        if (actor != this.actor) {
+            logger.trace("schedulePoll(): handler was re-initialized or disposed, not scheduling.");
+            return;
+        }
+
+        logger.trace("schedulePoll(): scheduling refresh in {} milliseconds.", delayMsecs);
+        ScheduledFuture<?> refreshSchedulerJob = scheduler.schedule(() -> {
+            actor.post(MessageType.POLL, () -> {
+                try {
+                    refreshSchedulerJob();
+                } finally {
+                    // a poll that failed must not end the polling, and an unresponsive web server is probed less and
+                    // less often instead of being polled
+                    long nextDelayMsecs;
+                    if (apiManager.isCircuitOpen()) {
+                        nextDelayMsecs = apiManager.getNextProbeDelayMsecs();
+                    } else {
+                        nextDelayMsecs = pollCadence.getNextDelayMsecs(System.currentTimeMillis());
+                        apiManager.setPollIntervalMsecs(nextDelayMsecs);
+                    }
+                    schedulePoll(actor, nextDelayMsecs);
+                }
+            });
+        }, delayMsecs, TimeUnit.MILLISECONDS);
+        this.refreshSchedulerJob = refreshSchedulerJob;
+        if (actor != this.actor) {
+            // dispose() was called while we were scheduling
+            refreshSchedulerJob.cancel(false);
+        }
+    }
+
+    /**
+     * Switches to fast polling after a command and brings the next poll forward if it was planned later than that.
+     */
+    private void commandSent() {
+        if (apiManager.isCircuitOpen()) {
+            // do not defeat the back off of the probes
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        pollCadence.commandSent(now);
+
+        long delayMsecs = pollCadence.getNextDelayMsecs(now);
+        AirZoneBridgeActor actor = this.actor;
+        ScheduledFuture<?> refreshSchedulerJob = this.refreshSchedulerJob;
+        if ((actor != null) && (refreshSchedulerJob != null)
+                && (refreshSchedulerJob.getDelay(TimeUnit.MILLISECONDS) > delayMsecs)
+                && refreshSchedulerJob.cancel(false)) {
+            schedulePoll(actor, delayMsecs);
+        }
+    }
+
+    private void refreshSchedulerJob() {
+        long pollStartNanos = System.nanoTime();
+        AirZonePollEvent pollEvent = AirZoneFlightRecorder.beginPoll();
         logger.debug("refreshSchedulerJob() initiated by {} starting cycle {}.", Thread.currentThread(),
                 refreshCounter);
 
-        apiManager.fetchStatus();
+        boolean skipped = false;
+        try {
+            if (apiManager.isCircuitOpen()) {
+                if (!apiManager.probe()) {
+                    logger.debug("refreshSchedulerJob(): web server {} still does not respond.",
+                            airZoneBridgeConfiguration.ipAddress);
+                    updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR);
+                    skipped = true;
+                    return;
+                }
+                logger.info("AirZone web server {} responds again.", airZoneBridgeConfiguration.ipAddress);
+                updateStatus(ThingStatus.ONLINE);
+            }
+
+            // each resource has its own cadence, only the zones are retrieved at each cycle
+            // and only for the systems that something is interested in, but everything is retrieved once for discovery
+            Set<Integer> demandedSystemIds = getDemandedSystemIds();
+            if (!demandedSystemIds.isEmpty() || !apiManager.hasZones()) {
+                apiManager.fetchZones(demandedSystemIds);
+            } else {
+                logger.trace("refreshSchedulerJob(): no linked channel on any zone, zones are not polled.");
+            }
+            if ((isSystemInfoDemanded() || !apiManager.hasSystems())
+                    && !apiManager.areSystemsFresh(airZoneBridgeConfiguration.systemsRefreshMsecs)) {
+                apiManager.fetchSystems();
+            }
+            if ((initializeStartNanos != 0) && apiManager.hasZones()) {
+                firstStateRetrieved();
+            }
+            pollCadence.zonesUpdated(apiManager.getZones(), System.currentTimeMillis());
 
-        doDiscovery();
+            doDiscovery();
 
-        refreshProperties();
+            refreshProperties();
 
-        syncChannelsWithProducts();
+            syncChannelsWithProducts();
 
-        logger.debug("refreshSchedulerJob() initiated by {} finished cycle {}.", Thread.currentThread(),
-                refreshCounter);
-        refreshCounter++;
+            if (apiManager.isCircuitOpen()) {
+                updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR);
+            }
+
+            saveSnapshot(false);
+
+            logger.debug("refreshSchedulerJob() initiated by {} finished cycle {}.", Thread.currentThread(),
+                    refreshCounter);
+            if (logger.isDebugEnabled()) {
+                AirZoneBridgeActor actor = this.actor;
+                if (actor != null) {
+                    logger.debug("refreshSchedulerJob(): mailbox statistics {}, {} redundant commands suppressed.",
+                            actor.getStatisticsSummary(), apiManager.getSuppressedWriteCount());
+                }
+            }
+        } finally {
+            // a poll that was skipped or failed still counts, so that the diagnostics tell it happened
+            apiManager.getStatistics().recordPoll(System.nanoTime() - pollStartNanos);
+            if (pollEvent != null) {
+                pollEvent.bridge = getThing().getUID().getAsString();
+                pollEvent.cycle = refreshCounter;
+                pollEvent.zones = apiManager.getZones().size();
+                pollEvent.channelsUpdated = cycleChannelUpdates;
+                pollEvent.skipped = skipped;
+                pollEvent.commit();
+            }
+            updateDiagnosticChannels();
+            refreshCounter++;
+        }
+    }
+
+    /**
+     * Computes the systems whose zones have to be polled: the ones with at least one linked channel on one of their
+     * zones, or with an online "all zones" thing as its state is derived from the master zone.
+     *
+     * @return the identifiers of the systems to poll
+     */
+    private Set<Integer> getDemandedSystemIds() {
+        Set<Integer> systemIds = new HashSet<>();
+        for (Thing thing : getThing().getThings()) {
+            ThingHandler thingHandler = thing.getHandler();
+
+            if (thingHandler instanceof AirZoneBaseZoneThingHandler) {
+                int systemId = ((AirZoneBaseZoneThingHandler) thingHandler).getPutRequestParameters().getSystemID();
+                if ((thingHandler instanceof AirZoneAllZonesThingHandler)
+                        && (thing.getStatus() == ThingStatus.ONLINE)) {
+                    systemIds.add(systemId);
+                } else if (hasLinkedChannel(thing)) {
+                    systemIds.add(systemId);
+                }
+            }
+        }
+        return systemIds;
+    }
+
+    /**
+     * Indicates if at least one system thing has a linked channel.
+     *
+     * @return true if the system information has to be polled
+     */
+    private boolean isSystemInfoDemanded() {
+        for (Thing thing : getThing().getThings()) {
+            if ((thing.getHandler() instanceof AirZoneSystemThingHandler) && hasLinkedChannel(thing)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasLinkedChannel(Thing thing) {
+        for (Channel channel : thing.getChannels()) {
+            if (isLinked(channel.getUID())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @SuppressWarnings("null") // unexplainable warning on discoveryService despite null check right before the call
@@ -324,6 +837,7 @@ public class AirZoneBridgeHandler extends BaseBridgeHandler {
      * update the corresponding states via openHAB event bus.
      */
     private void syncChannelsWithProducts() {
+        long channelUpdates = 0;
         for (Thing thing : getThing().getThings()) {
             ThingHandler thingHandler = thing.getHandler();
 
@@ -336,9 +850,13 @@ public class AirZoneBridgeHandler extends BaseBridgeHandler {
                 }
 
                 AirZoneBaseThingHandler baseThingHandler = (AirZoneBaseThingHandler) thingHandler;
+                long previousUpdates = baseThingHandler.getChannelUpdateCount();
                 baseThingHandler.refreshChannelsAndProperties(apiManager, channelUIDs);
+                channelUpdates += baseThingHandler.getChannelUpdateCount() - previousUpdates;
             }
         }
+        cycleChannelUpdates = channelUpdates;
+        totalChannelUpdates += channelUpdates;
         logger.trace("syncChannelsWithProducts() done.");
     }
 
@@ -348,8 +866,10 @@ public class AirZoneBridgeHandler extends BaseBridgeHandler {
 
     @SuppressWarnings("unused")  // really, we just set the value to null in the code above, so the code is definitely not dead...
     private void refreshProperties() {
-        if (thing.getProperties().get(AirZoneBindingConstants.PROPERTY_BRIDGE_MAC) == null) {
-            var props = apiManager.getServerProperties();
+        if ((thing.getProperties().get(AirZoneBindingConstants.PROPERTY_BRIDGE_MAC) == null)
+                || !apiManager.areServerPropertiesFresh(airZoneBridgeConfiguration.webServerRefreshMsecs)) {
+            apiManager.fetchServerProperties();
+            var props = apiManager.getLatestServerProperties();
             if (props != null) {
                 thing.setProperty(AirZoneBindingConstants.PROPERTY_BRIDGE_MAC, props.getMac());
                 thing.setProperty(AirZoneBindingConstants.PROPERTY_BRIDGE_WIFI_CHANNEL, ((Integer)props.getWifiChannel()).toString());
@@ -360,7 +880,7 @@ public class AirZoneBridgeHandler extends BaseBridgeHandler {
                 thing.setProperty(AirZoneBindingConstants.PROPERTY_BRIDGE_TYPE, props.getType());
             }
 
-            var apiVersion = apiManager.getApiVersion();
+            var apiVersion = apiManager.getLatestApiVersion();
             thing.setProperty(AirZoneBindingConstants.PROPERTY_BRIDGE_API_VERSION, apiVersion);
         }
     }
@@ -374,12 +894,92 @@ public class AirZoneBridgeHandler extends BaseBridgeHandler {
         logger.debug("handleCommand({},{}) called.", channelUID.getAsString(), command);
 
         // Background execution of bridge related I/O
-        submitCommunicationsJob(() -> {
+        postCommunicationsJob(command, null, () -> {
             handleCommandCommsJob(channelUID, command);
         });
         logger.trace("handleCommand({}) done.", Thread.currentThread());
     }
 
+    /**
+     * Handles a command sent to a channel of one of the things attached to this bridge. The command is posted to the
+     * actor so that it never overlaps with any other communication with the bridge.
+     *
+     * @param thingHandler the handler of the thing that received the command,
+     * @param channelUID the {@link ChannelUID} of the channel to which the command was sent,
+     * @param command the {@link Command},
+     * @param commandId the identifier correlating the flight recorder events of the command,
+     * @param commandNanos the {@link System#nanoTime} at which the command was received.
+     */
+    public void handleThingCommand(AirZoneBaseThingHandler thingHandler, ChannelUID channelUID, Command command,
+            long commandId, long commandNanos) {
+        logger.trace("handleThingCommand({}): command {} on channel {} will be scheduled.", Thread.currentThread(),
+                command, channelUID.getAsString());
+        AirZoneCommandEvent queuedEvent = AirZoneFlightRecorder.beginCommand();
+
+        // a command that is still waiting is superseded by a newer one on the same channel, i.e. the same zone field
+        // and the actor drops it if it could not be sent before the command timeout
+        CompletableFuture<@Nullable Void> future = postCommunicationsJob(command,
+                (command instanceof RefreshType) ? null : channelUID, () -> {
+                    AirZoneCommandEvent sentEvent = AirZoneFlightRecorder.beginCommand();
+                    CommandResult result = thingHandler.processCommand(channelUID, command, commandId, commandNanos,
+                            apiManager);
+                    if (result == CommandResult.UNHANDLED) {
+                        handleCommandCommsJob(channelUID, command);
+                    } else if (result == CommandResult.SENT) {
+                        // a redundant or refused command changes nothing that fast polling would need to catch
+                        commandSent();
+                        commitCommandEvent(sentEvent, commandId, channelUID, command, AirZoneCommandEvent.STAGE_SENT,
+                                commandNanos);
+                    }
+                });
+        if (future == null) {
+            AirZoneFlightRecorder.commandStage(commandId, channelUID, command, AirZoneCommandEvent.STAGE_REJECTED,
+                    commandNanos);
+            thingHandler.commandDiscarded(channelUID, command);
+            return;
+        }
+        commitCommandEvent(queuedEvent, commandId, channelUID, command, AirZoneCommandEvent.STAGE_QUEUED,
+                commandNanos);
+        future.whenComplete((result, exception) -> {
+            @Nullable
+            String stage = getDiscardedStage(exception);
+            if (stage != null) {
+                AirZoneFlightRecorder.commandStage(commandId, channelUID, command, stage, commandNanos);
+                thingHandler.commandDiscarded(channelUID, command);
+            }
+        });
+    }
+
+    /**
+     * Tells why a command never reached the web server.
+     *
+     * @param exception the exception the future of the command was completed with, null if it was processed
+     * @return one of the {@code STAGE_} constants of {@link AirZoneCommandEvent}, null if the command was processed
+     */
+    private static @Nullable String getDiscardedStage(@Nullable Throwable exception) {
+        if (exception instanceof TimeoutException) {
+            return AirZoneCommandEvent.STAGE_EXPIRED;
+        } else if ((exception instanceof DiscardedException)
+                && (((DiscardedException) exception).getReason() == DiscardedException.Reason.SUPERSEDED)) {
+            return AirZoneCommandEvent.STAGE_SUPERSEDED;
+        } else if (exception instanceof CancellationException) {
+            return AirZoneCommandEvent.STAGE_DROPPED;
+        }
+        return null;
+    }
+
+    private static void commitCommandEvent(@Nullable AirZoneCommandEvent event, long commandId, ChannelUID channelUID,
+            Command command, String stage, long commandNanos) {
+        if (event != null) {
+            event.commandId = commandId;
+            event.channel = channelUID.getAsString();
+            event.command = command.toFullString();
+            event.stage = stage;
+            event.sinceCommand = System.nanoTime() - commandNanos;
+            event.commit();
+        }
+    }
+
     /**
      * Normally called by {@link #handleCommand} to handle a command for a given channel with possibly long execution
      * time.
@@ -390,7 +990,7 @@ public class AirZoneBridgeHandler extends BaseBridgeHandler {
      * @param channelUID the {@link ChannelUID} of the channel to which the command was sent,
      * @param command the {@link Command}.
      */
-    private synchronized void handleCommandCommsJob(ChannelUID channelUID, Command command) {
+    private void handleCommandCommsJob(ChannelUID channelUID, Command command) {
         logger.trace("handleCommandCommsJob({}): command {} on channel {}.", Thread.currentThread(), command,
                 channelUID.getAsString());
         logger.debug("handleCommandCommsJob({},{}) called.", channelUID.getAsString(), command);
@@ -407,31 +1007,130 @@ public class AirZoneBridgeHandler extends BaseBridgeHandler {
 
         syncChannelsWithProducts();
 
-        if (command instanceof RefreshType) {
-            // The bridge has no channels to refresh
+        if (AirZoneBindingConstants.CHANNEL_BRIDGE_RECENT_EXCHANGES.equals(channelUID.getId())) {
+            // any command asks for a dump, the exchanges are not published at each poll as they are rather large
+            updateState(channelUID, new StringType(apiManager.getExchangeRecorder().dump()));
+        } else if (command instanceof RefreshType) {
+            updateDiagnosticChannels();
         } else {
-            // The bridge has no channels to handle a command for
+            // The bridge has no other channel to handle a command for
         }
 
-        updateStatus(ThingStatus.ONLINE);
+        if (!apiManager.isCircuitOpen()) {
+            updateStatus(ThingStatus.ONLINE);
+        }
 
         logger.trace("handleCommandCommsJob({}) done.", Thread.currentThread());
     }
 
     /**
-     * If necessary initialize the communications job executor. Then check if the executor is shut down. And if it is
-     * not shut down, then submit the given communications job for execution.
+     * Posts the given communications job to the actor, as a REFRESH or COMMAND message depending on the command.
+     * The job is rejected if the bridge is not initialized, is being disposed or has too many commands waiting.
+     *
+     * @param command the command the job is about
+     * @param supersessionKey the key under which a newer job replaces this one if it is still waiting, may be null
+     * @param communicationsJob the job to execute on the actor thread
+     * @return the future of the job, null if it was rejected
      */
-    private void submitCommunicationsJob(Runnable communicationsJob) {
-        ExecutorService commsJobExecutor = this.communicationsJobExecutor;
-        if (commsJobExecutor == null) {
-            commsJobExecutor = this.communicationsJobExecutor = Executors.newSingleThreadExecutor(getThreadFactory());
+    private @Nullable CompletableFuture<@Nullable Void> postCommunicationsJob(Command command,
+            @Nullable Object supersessionKey, Runnable communicationsJob) {
+        AirZoneBridgeActor actor = this.actor;
+        MessageType type = (command instanceof RefreshType) ? MessageType.REFRESH : MessageType.COMMAND;
+        @Nullable
+        CompletableFuture<@Nullable Void> future = (actor != null) ? actor.submit(type, supersessionKey,
+                airZoneBridgeConfiguration.commandTimeoutMsecs, communicationsJob) : null;
+        if (future == null) {
+            logger.debug("postCommunicationsJob(): bridge {} is not running or busy, {} {} rejected.",
+                    getThing().getUID(), type, command);
         }
-        if (!commsJobExecutor.isShutdown()) {
-            commsJobExecutor.execute(communicationsJob);
+        return future;
+    }
+
+    /**
+     * Adds the diagnostic channels to the bridge, or removes them, so that they only clutter the bridges that are
+     * being diagnosed.
+     *
+     * @param enabled true if the channels are wanted
+     */
+    private synchronized void createDiagnosticChannels(boolean enabled) {
+        ThingHandlerCallback callback = getCallback();
+        if (callback == null) {
+            logger.warn("createDiagnosticChannels: Could not get callback.");
+            return;
+        }
+
+        ThingUID thingUID = getThing().getUID();
+        ThingBuilder builder = editThing();
+        for (String channelId : AirZoneBindingConstants.CHANNEL_BRIDGE_DIAGNOSTICS) {
+            builder.withoutChannel(new ChannelUID(thingUID, channelId));
+        }
+        if (enabled) {
+            for (String channelId : AirZoneBindingConstants.CHANNEL_BRIDGE_DIAGNOSTICS) {
+                boolean roundTrip = channelId.startsWith(AirZoneBindingConstants.CHANNEL_TYPE_BRIDGE_ROUND_TRIP);
+                ChannelTypeUID channelTypeUID = new ChannelTypeUID(AirZoneBindingConstants.BINDING_ID,
+                        roundTrip ? AirZoneBindingConstants.CHANNEL_TYPE_BRIDGE_ROUND_TRIP : channelId);
+                ChannelBuilder channelBuilder = callback.createChannelBuilder(new ChannelUID(thingUID, channelId),
+                        channelTypeUID);
+                if (roundTrip) {
+                    // the percentiles share their type, each has its own label
+                    String keyPrefix = "channel-type.airzone.bridge." + channelId;
+                    channelBuilder.withLabel(localization.getText(keyPrefix + ".label"))
+                            .withDescription(localization.getText(keyPrefix + ".description"));
+                }
+                builder.withChannel(channelBuilder.build());
+            }
+        }
+
+        Thing newThing = builder.build();
+        if (!getChannelUIDs(newThing).equals(getChannelUIDs(getThing()))) {
+            logger.debug("createDiagnosticChannels(): diagnostic channels of {} {}.", thingUID,
+                    enabled ? "added" : "removed");
+            updateThing(newThing);
         }
     }
 
+    private static List<ChannelUID> getChannelUIDs(Thing thing) {
+        List<ChannelUID> channelUIDs = new ArrayList<>();
+        for (Channel channel : thing.getChannels()) {
+            channelUIDs.add(channel.getUID());
+        }
+        return channelUIDs;
+    }
+
+    /**
+     * Publishes the state of the command queue and the request statistics on the diagnostics channels of the bridge.
+     */
+    private void updateDiagnosticChannels() {
+        AirZoneBridgeActor actor = this.actor;
+        if ((actor == null) || !airZoneBridgeConfiguration.diagnosticChannels) {
+            return;
+        }
+        updateState(AirZoneBindingConstants.CHANNEL_BRIDGE_QUEUE_DEPTH, new DecimalType(actor.getPendingCommandCount()));
+        updateState(AirZoneBindingConstants.CHANNEL_BRIDGE_QUEUE_AGE,
+                new QuantityType<>(actor.getOldestCommandAgeMillis() / 1000.0, Units.SECOND));
+
+        AirZoneApiStatistics statistics = apiManager.getStatistics();
+        AirZoneApiStatistics.Counters totals = statistics.getTotals();
+        updateState(AirZoneBindingConstants.CHANNEL_BRIDGE_REQUESTS, new DecimalType(totals.getRequests()));
+        updateState(AirZoneBindingConstants.CHANNEL_BRIDGE_REQUEST_ERRORS, new DecimalType(totals.getErrors()));
+        updateState(AirZoneBindingConstants.CHANNEL_BRIDGE_REQUEST_TIMEOUTS, new DecimalType(totals.getTimeouts()));
+        updateState(AirZoneBindingConstants.CHANNEL_BRIDGE_REQUESTS_BY_RESOURCE,
+                new StringType(statistics.getSummary()));
+        updateState(AirZoneBindingConstants.CHANNEL_BRIDGE_ROUND_TRIP_P50,
+                new QuantityType<>(statistics.getRoundTripPercentileMsecs(50) / 1000.0, Units.SECOND));
+        updateState(AirZoneBindingConstants.CHANNEL_BRIDGE_ROUND_TRIP_P95,
+                new QuantityType<>(statistics.getRoundTripPercentileMsecs(95) / 1000.0, Units.SECOND));
+        updateState(AirZoneBindingConstants.CHANNEL_BRIDGE_ROUND_TRIP_P99,
+                new QuantityType<>(statistics.getRoundTripPercentileMsecs(99) / 1000.0, Units.SECOND));
+        updateState(AirZoneBindingConstants.CHANNEL_BRIDGE_PACING_WAIT,
+                new QuantityType<>(statistics.getPacingWaitMsecs() / 1000.0, Units.SECOND));
+        updateState(AirZoneBindingConstants.CHANNEL_BRIDGE_POLL_DURATION,
+                new QuantityType<>(statistics.getLastPollMsecs() / 1000.0, Units.SECOND));
+        long zonesAgeMsecs = apiManager.getZonesAgeMsecs();
+        updateState(AirZoneBindingConstants.CHANNEL_BRIDGE_SNAPSHOT_AGE, (zonesAgeMsecs < 0) ? UnDefType.UNDEF
+                : new QuantityType<>(zonesAgeMsecs / 1000.0, Units.SECOND));
+    }
+
     /**
      * If necessary initialize the thread factory and return it
      *
@@ -440,11 +1139,31 @@ public class AirZoneBridgeHandler extends BaseBridgeHandler {
     public NamedThreadFactory getThreadFactory() {
         NamedThreadFactory threadFactory = this.threadFactory;
         if (threadFactory == null) {
-            threadFactory = new NamedThreadFactory(getThing().getUID().getAsString());
+            threadFactory = this.threadFactory = new NamedThreadFactory(getThing().getUID().getAsString());
         }
         return threadFactory;
     }
 
+    /**
+     * Returns the thread factory for the actor, creating virtual threads if the configuration asks for it and the
+     * runtime supports them.
+     *
+     * @return the thread factory
+     */
+    private ThreadFactory getCommunicationsThreadFactory() {
+        if (airZoneBridgeConfiguration.virtualThreads) {
+            ThreadFactory virtualThreadFactory = VirtualThreads.newThreadFactory(getThing().getUID().getAsString());
+            if (virtualThreadFactory != null) {
+                logger.debug("getCommunicationsThreadFactory(): using virtual threads for bridge {}.",
+                        getThing().getUID());
+                return virtualThreadFactory;
+            }
+            logger.info("Virtual threads are not available on Java {}, bridge {} uses a regular thread.",
+                    Runtime.version().feature(), getThing().getUID());
+        }
+        return getThreadFactory();
+    }
+
     /**
      * Indicates if the bridge thing is being disposed.
      *
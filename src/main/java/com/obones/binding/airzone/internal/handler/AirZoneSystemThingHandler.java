@@ -44,17 +44,21 @@ import com.obones.binding.airzone.internal.utils.Localization;
 public class AirZoneSystemThingHandler extends AirZoneBaseThingHandler {
     private @NonNullByDefault({}) final Logger logger = LoggerFactory.getLogger(AirZoneZoneThingHandler.class);
 
+    // whether the power channel was last created for the system, null if the system was not known yet
+    private volatile @Nullable Boolean appliedPowerCapability = null;
+
     public AirZoneSystemThingHandler(Thing thing, Localization localization) {
         super(thing, localization);
     }
 
     @Override
-    protected boolean handleActionCommand(ChannelUID channelUID, Command command, AirZoneApiManager apiManager) {
+    protected CommandResult handleActionCommand(ChannelUID channelUID, Command command,
+            AirZoneApiManager apiManager) {
         String channelId = channelUID.getId();
         switch (channelId) {
         }
 
-        return false;
+        return CommandResult.UNHANDLED;
     }
 
     @Override
@@ -66,9 +70,6 @@ public class AirZoneSystemThingHandler extends AirZoneBaseThingHandler {
     }
 
     public boolean refreshChannel(ChannelUID channelUID, @Nullable AirZoneHvacSystemInfo system) {
-        if (channelIsInActionCommand(channelUID))
-            return true;
-
         if (system != null) {
             State newState = null;
             String channelId = channelUID.getId();
@@ -79,7 +80,7 @@ public class AirZoneSystemThingHandler extends AirZoneBaseThingHandler {
             }
 
             if (newState != null) {
-                updateState(channelUID, newState);
+                updateChannelState(channelUID, newState);
                 return true;
             }
         }
@@ -107,6 +108,9 @@ public class AirZoneSystemThingHandler extends AirZoneBaseThingHandler {
         ThingBuilder builder = editThing();
         ThingUID thingUID = thing.getUID();
 
+        // start from scratch so that the power channel is removed if the system does not report it anymore
+        builder.withoutChannel(new ChannelUID(thingUID, AirZoneBindingConstants.CHANNEL_SYSTEM_POWER));
+
         @Nullable
         Double systemPower = system.getPower();
         if (systemPower != null) {
@@ -116,7 +120,8 @@ public class AirZoneSystemThingHandler extends AirZoneBaseThingHandler {
                     systemPowerTypeUID);
         }
 
-        updateThing(builder.build());
+        updateThingIfChanged(builder.build());
+        appliedPowerCapability = (systemPower != null);
     }
 
     @Override
@@ -133,6 +138,15 @@ public class AirZoneSystemThingHandler extends AirZoneBaseThingHandler {
         AirZoneHvacSystemInfo system = apiManager.getSystem(config.systemId);
 
         if (system != null) {
+            // the system may only be known now, or may report its power after a firmware update
+            Boolean hasPower = (system.getPower() != null);
+            if (!hasPower.equals(appliedPowerCapability)) {
+                if (appliedPowerCapability != null) {
+                    logger.info("Capabilities of system {} have changed, updating its channels.", thing.getUID());
+                }
+                createOptionalChannels();
+            }
+
             refreshProperties(system);
 
             for (ChannelUID uid : linkedChannelsUIDs) {
@@ -75,7 +75,25 @@ public class AirZoneZoneThingHandler extends AirZoneBaseZoneThingHandler {
 
     @Override
     protected synchronized void createOptionalChannels(AirZoneBridgeHandler bridgeHandler) {
-        super.createOptionalChannels(bridgeHandler, AutoUpdatePolicy.RECOMMEND);
+        // with optimistic updates, the handler publishes the predicted state itself and reverts it if need be
+        super.createOptionalChannels(bridgeHandler,
+                bridgeHandler.isOptimisticUpdates() ? AutoUpdatePolicy.VETO : AutoUpdatePolicy.RECOMMEND);
+    }
+
+    @Override
+    protected List<String> getStaticCommandChannelIds() {
+        return List.of(AirZoneBindingConstants.CHANNEL_ZONE_NAME, AirZoneBindingConstants.CHANNEL_ZONE_ON_OFF,
+                AirZoneBindingConstants.CHANNEL_ZONE_MODE, AirZoneBindingConstants.CHANNEL_ZONE_HEAT_STAGE,
+                AirZoneBindingConstants.CHANNEL_ZONE_COLD_STAGE, AirZoneBindingConstants.CHANNEL_ZONE_SLEEP);
+    }
+
+    @Override
+    protected List<String> getOptionalChannelIds() {
+        List<String> channelIds = new ArrayList<>(super.getOptionalChannelIds());
+        channelIds.addAll(List.of(AirZoneBindingConstants.CHANNEL_ZONE_AIR_DEMAND,
+                AirZoneBindingConstants.CHANNEL_ZONE_FLOOR_DEMAND, AirZoneBindingConstants.CHANNEL_ZONE_COLD_DEMAND,
+                AirZoneBindingConstants.CHANNEL_ZONE_HEAT_DEMAND));
+        return channelIds;
     }
 
     @Override
@@ -117,11 +135,6 @@ public class AirZoneZoneThingHandler extends AirZoneBaseZoneThingHandler {
 
     @Override
     public boolean refreshChannel(ChannelUID channelUID, @Nullable AirZoneHvacZone zone) {
-        if (channelIsInActionCommand(channelUID)) {
-            logger.debug("channel {} is processed by a command, ignoring refresh", channelUID.getAsString());
-            return true;
-        }
-
         if (zone != null) {
             Unit<Temperature> temperatureUnit = (zone.getUnits() == 0 ? SIUnits.CELSIUS : ImperialUnits.FAHRENHEIT);
 
@@ -238,7 +251,7 @@ public class AirZoneZoneThingHandler extends AirZoneBaseZoneThingHandler {
             }
 
             if (newState != null) {
-                updateState(channelUID, newState);
+                updateChannelState(channelUID, newState, zone.getSequence());
                 return true;
             }
         }
@@ -348,15 +361,36 @@ public class AirZoneZoneThingHandler extends AirZoneBaseZoneThingHandler {
         return new AirZoneHvacZonePutRequestParameters(config.systemId, config.zoneId);
     }
 
-    public @Nullable StateDescriptionFragmentBuilder adjustChannelState(ChannelTypeUID channelTypeUID,
-            StateDescriptionFragmentBuilder builder) {
+    public @Nullable StateDescriptionFragmentBuilder adjustChannelState(ChannelUID channelUID,
+            ChannelTypeUID channelTypeUID, StateDescriptionFragmentBuilder builder) {
         AirZoneHvacZone zone = getZone();
         if (zone == null)
             return null;
 
         switch (channelTypeUID.getId()) {
             case AirZoneBindingConstants.CHANNEL_TYPE_ZONE_SETPOINT_TEMPERATURE:
-                return builder.withStep(new BigDecimal(zone.getTempStep()));
+                builder = builder.withStep(new BigDecimal(zone.getTempStep()));
+
+                // publish the limits of the zone so that the UI does not offer values it would reject
+                String fieldName;
+                switch (channelUID.getId()) {
+                    case AirZoneBindingConstants.CHANNEL_ZONE_COOL_SETPOINT:
+                        fieldName = "coolsetpoint";
+                        break;
+                    case AirZoneBindingConstants.CHANNEL_ZONE_HEAT_SETPOINT:
+                        fieldName = "heatsetpoint";
+                        break;
+                    default:
+                        fieldName = "setpoint";
+                        break;
+                }
+                double minimum = AirZoneApiManager.getSetpointMinimum(zone, fieldName);
+                double maximum = AirZoneApiManager.getSetpointMaximum(zone, fieldName);
+                if (maximum > minimum) {
+                    builder = builder.withMinimum(BigDecimal.valueOf(minimum))
+                            .withMaximum(BigDecimal.valueOf(maximum));
+                }
+                return builder;
             case AirZoneBindingConstants.CHANNEL_TYPE_ZONE_MODE:
                 // only the master zone can change the mode of operation
                 return builder.withReadOnly(!AirZoneApiManager.getIsMasterZone(zone));
@@ -0,0 +1,564 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.internal.handler.utils;
+
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link AirZoneBridgeActor} serializes all the communications of a bridge through a single consumer thread.
+ * <P>
+ * Every request towards the bridge is posted as a typed message into a mailbox and processed in order, one at a time.
+ * This removes the need for any lock around the bridge I/O: whatever runs inside a message is guaranteed to be the
+ * only piece of code talking to the bridge at that time.
+ * <P>
+ * A message can be given a supersession key: when a newer message with the same key is posted while the previous one
+ * is still waiting in the mailbox, the previous one is dropped. This way, only the latest value of a setpoint slider
+ * is sent to the bridge.
+ * <P>
+ * Commands and refreshes are bounded: they may be given a deadline after which they are dropped instead of being
+ * processed and each of them returns a future that can be cancelled while it is waiting. Besides, only a given number
+ * of commands can wait at the same time, the {@link OverflowPolicy} deciding what happens to the others; refreshes and
+ * probes do not count against that number as they do not change anything on the bridge.
+ * <P>
+ * For each message type, the time spent waiting in the mailbox is recorded so that congestion can be diagnosed.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class AirZoneBridgeActor {
+    private @NonNullByDefault({}) final Logger logger = LoggerFactory.getLogger(AirZoneBridgeActor.class);
+
+    /**
+     * The kinds of messages accepted by the actor.
+     */
+    public enum MessageType {
+        /** Regular refresh of the bridge state */
+        POLL,
+        /** Command sent to a channel */
+        COMMAND,
+        /** REFRESH request on a channel */
+        REFRESH,
+        /** Diagnostic request measuring the round trip time of the web server */
+        PROBE,
+        /** (Re)configuration of the bridge */
+        RECONFIGURE
+    }
+
+    /**
+     * What to do with a command posted while the maximum number of commands are already waiting.
+     */
+    public enum OverflowPolicy {
+        /**
+         * The waiting command with the same supersession key, that is for the same field, is dropped to make room for
+         * the new one, which is rejected if there is no such command
+         */
+        DROP_OLDEST,
+        /** The new command is rejected */
+        REJECT
+    }
+
+    /**
+     * Completes the future of a message that was discarded by the actor before being processed. As it is a
+     * {@link CancellationException}, the future reports itself as cancelled.
+     */
+    public static class DiscardedException extends CancellationException {
+        public static final long serialVersionUID = 1L;
+
+        /**
+         * Why a message was discarded.
+         */
+        public enum Reason {
+            /** A newer message with the same supersession key was posted */
+            SUPERSEDED,
+            /** The message made room for a newer command while the command queue was full */
+            DROPPED,
+            /** The actor stopped before processing the message */
+            STOPPED
+        }
+
+        private final Reason reason;
+
+        public DiscardedException(Reason reason) {
+            super("message discarded: " + reason);
+            this.reason = reason;
+        }
+
+        public Reason getReason() {
+            return reason;
+        }
+    }
+
+    private static class Message {
+        private final MessageType type;
+        private final Runnable job;
+        private final @Nullable Object key;
+        private final long enqueuedNanos;
+        private final long deadlineNanos;
+        private final CompletableFuture<@Nullable Void> future = new CompletableFuture<>();
+        // set when the message is either processed, superseded, dropped or cancelled, whichever comes first
+        private final AtomicBoolean claimed = new AtomicBoolean(false);
+
+        private Message(MessageType type, Runnable job, @Nullable Object key, long timeoutMsecs) {
+            this.type = type;
+            this.job = job;
+            this.key = key;
+            this.enqueuedNanos = System.nanoTime();
+            this.deadlineNanos = (timeoutMsecs > 0) ? enqueuedNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMsecs)
+                    : Long.MAX_VALUE;
+        }
+
+        private boolean isCommand() {
+            return type == MessageType.COMMAND;
+        }
+
+        private boolean isExpired(long nowNanos) {
+            return (deadlineNanos != Long.MAX_VALUE) && (nowNanos - deadlineNanos > 0);
+        }
+    }
+
+    private final String name;
+    private final ThreadFactory threadFactory;
+    private volatile int commandCapacity;
+    private volatile OverflowPolicy overflowPolicy;
+    private final BlockingQueue<Message> mailbox = new LinkedBlockingQueue<>();
+    private final Map<Object, Message> pendingByKey = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final AtomicBoolean pollQueued = new AtomicBoolean(false);
+    private final AtomicInteger pendingCommands = new AtomicInteger();
+    private volatile boolean stopped = false;
+    private volatile @Nullable Thread worker = null;
+    private final CompletableFuture<@Nullable Void> terminated = new CompletableFuture<>();
+
+    // queue latency statistics, indexed by MessageType ordinal
+    private final AtomicLongArray messageCounts = new AtomicLongArray(MessageType.values().length);
+    private final AtomicLongArray totalLatencyNanos = new AtomicLongArray(MessageType.values().length);
+    private final AtomicLongArray maxLatencyNanos = new AtomicLongArray(MessageType.values().length);
+    private final AtomicLong supersededCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    public AirZoneBridgeActor(String name, ThreadFactory threadFactory) {
+        this(name, threadFactory, Integer.MAX_VALUE, OverflowPolicy.REJECT);
+    }
+
+    public AirZoneBridgeActor(String name, ThreadFactory threadFactory, int commandCapacity,
+            OverflowPolicy overflowPolicy) {
+        this.name = name;
+        this.threadFactory = threadFactory;
+        this.commandCapacity = Math.max(1, commandCapacity);
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Posts a message in the mailbox of this actor, starting its worker thread if need be.
+     * <P>
+     * A {@link MessageType#POLL} message is silently dropped if another one is still waiting to be processed, there is
+     * no point in polling twice in a row.
+     *
+     * @param type the type of message
+     * @param job the code to execute on the actor thread
+     * @return true if the message was accepted
+     */
+    public boolean post(MessageType type, Runnable job) {
+        return post(type, null, job);
+    }
+
+    /**
+     * Posts a message in the mailbox of this actor, superseding any message with the same key that is still waiting
+     * to be processed.
+     *
+     * @param type the type of message
+     * @param key the supersession key, null if the message cannot be superseded
+     * @param job the code to execute on the actor thread
+     * @return true if the message was accepted
+     */
+    public boolean post(MessageType type, @Nullable Object key, Runnable job) {
+        return submit(type, key, 0, job) != null;
+    }
+
+    /**
+     * Posts a message in the mailbox of this actor and returns a future completed once the message is processed.
+     * <P>
+     * Cancelling the future while the message is waiting prevents it from being processed. A message that is still
+     * waiting once its timeout has elapsed is dropped, its future being completed with a {@link TimeoutException}.
+     * A message that is superseded, dropped to make room for a newer command or discarded because the actor stops has
+     * its future completed with a {@link DiscardedException} telling why.
+     *
+     * @param type the type of message
+     * @param key the supersession key, null if the message cannot be superseded
+     * @param timeoutMsecs the time after which the message is dropped if it was not processed, 0 for no timeout
+     * @param job the code to execute on the actor thread
+     * @return the future of the message, null if it was rejected
+     */
+    public @Nullable CompletableFuture<@Nullable Void> submit(MessageType type, @Nullable Object key,
+            long timeoutMsecs, Runnable job) {
+        if (stopped) {
+            logger.trace("post({}): actor {} is stopped, message rejected.", type, name);
+            return null;
+        }
+
+        Message message = new Message(type, job, key, timeoutMsecs);
+        if (type == MessageType.POLL && !pollQueued.compareAndSet(false, true)) {
+            logger.trace("post({}): a poll is already waiting in actor {}, message dropped.", type, name);
+            message.future.cancel(false);
+            return message.future;
+        }
+
+        if (message.isCommand() && !reserveCommandSlot(message)) {
+            return null;
+        }
+
+        if (key != null) {
+            Message previous = pendingByKey.put(key, message);
+            if ((previous != null) && claim(previous)) {
+                supersededCount.incrementAndGet();
+                discard(previous, DiscardedException.Reason.SUPERSEDED);
+                logger.trace("post({}): message for {} superseded in actor {}.", type, key, name);
+            }
+        }
+        message.future.whenComplete((result, exception) -> {
+            // a future cancelled by the caller must not be processed anymore
+            if (message.future.isCancelled() && claim(message)) {
+                logger.trace("post({}): message cancelled in actor {}.", message.type, name);
+            }
+        });
+        mailbox.add(message);
+        if (stopped && mailbox.remove(message)) {
+            // the worker stopped meanwhile and will never take this message
+            discard(message, DiscardedException.Reason.STOPPED);
+            return null;
+        }
+        if (started.compareAndSet(false, true)) {
+            threadFactory.newThread(this::processMailbox).start();
+        }
+        return message.future;
+    }
+
+    /**
+     * Changes the bounds of the command queue, the commands already waiting are kept even if there are more of them
+     * than the new capacity.
+     *
+     * @param commandCapacity the maximum number of commands that can wait at the same time
+     * @param overflowPolicy what to do with a command posted while the queue is full
+     */
+    public void setCommandQueueBounds(int commandCapacity, OverflowPolicy overflowPolicy) {
+        this.commandCapacity = Math.max(1, commandCapacity);
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Stops this actor without waiting for the messages in its mailbox: they are all cancelled and the message being
+     * processed, if any, is interrupted.
+     *
+     * @param timeoutMsecs the maximum time to wait for the worker thread to finish
+     * @return true if the worker thread has finished, false if it is still busy once the timeout has elapsed
+     */
+    public boolean stop(long timeoutMsecs) {
+        stopped = true;
+        if (started.compareAndSet(false, true)) {
+            // the worker thread was never started
+            terminated.complete(null);
+        }
+        Thread worker = this.worker;
+        if ((worker != null) && (worker != Thread.currentThread())) {
+            worker.interrupt();
+        }
+
+        try {
+            terminated.get(timeoutMsecs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Actor {} did not stop within {} ms.", name, timeoutMsecs);
+            return false;
+        } catch (ExecutionException e) {
+            // never completed exceptionally
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Registers code to run once the worker thread of this actor has finished, on that thread, or right away on the
+     * calling thread if it has already finished. This is where the resources used by the messages can be released,
+     * even when {@link #stop} gave up waiting for a message that was slow to abort.
+     *
+     * @param hook the code to run
+     */
+    public void whenTerminated(Runnable hook) {
+        terminated.thenRun(hook).exceptionally(e -> {
+            logger.warn("whenTerminated(): exit hook of actor {} failed", name, e);
+            return null;
+        });
+    }
+
+    /**
+     * Counts a command among the waiting ones, applying the overflow policy if the maximum number of them are already
+     * waiting. The count is checked and incremented atomically, so that concurrent posters cannot exceed it.
+     *
+     * @param message the command that is being posted
+     * @return true if the command can be added to the mailbox
+     */
+    private boolean reserveCommandSlot(Message message) {
+        while (true) {
+            int pending = pendingCommands.get();
+            if (pending < commandCapacity) {
+                if (pendingCommands.compareAndSet(pending, pending + 1)) {
+                    return true;
+                }
+            } else if (!makeRoom(message)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Applies the overflow policy when the maximum number of commands are waiting.
+     *
+     * @param message the command that is being posted
+     * @return true if a waiting command was dropped, false if the new one is rejected
+     */
+    private boolean makeRoom(Message message) {
+        Object key = message.key;
+        if ((overflowPolicy == OverflowPolicy.DROP_OLDEST) && (key != null)) {
+            Message waiting = pendingByKey.get(key);
+            if ((waiting != null) && claim(waiting)) {
+                pendingByKey.remove(key, waiting);
+                droppedCount.incrementAndGet();
+                discard(waiting, DiscardedException.Reason.DROPPED);
+                logger.debug("post({}): {} commands waiting in actor {}, previous one for {} dropped.", message.type,
+                        commandCapacity, name, key);
+                return true;
+            }
+        }
+
+        rejectedCount.incrementAndGet();
+        logger.warn("{} commands are already waiting for bridge {}, {} rejected.", commandCapacity, name,
+                message.type);
+        return false;
+    }
+
+    /**
+     * Marks a message as taken care of, so that it is processed, superseded, dropped or cancelled only once.
+     *
+     * @param message the message to claim
+     * @return true if the message had not been claimed yet
+     */
+    private boolean claim(Message message) {
+        if (!message.claimed.compareAndSet(false, true)) {
+            return false;
+        }
+        if (message.isCommand()) {
+            pendingCommands.decrementAndGet();
+        }
+        return true;
+    }
+
+    private static void discard(Message message, DiscardedException.Reason reason) {
+        message.future.completeExceptionally(new DiscardedException(reason));
+    }
+
+    /**
+     * Indicates if this actor has stopped accepting messages.
+     *
+     * @return true once {@link #stop} was called or the worker thread has finished
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    public int getQueueDepth() {
+        return mailbox.size();
+    }
+
+    /**
+     * Returns the number of commands waiting to be processed, refreshes excluded.
+     *
+     * @return the number of waiting commands
+     */
+    public int getPendingCommandCount() {
+        return pendingCommands.get();
+    }
+
+    /**
+     * Returns how long the oldest waiting command has been waiting.
+     *
+     * @return the age in milliseconds, 0 if no command is waiting
+     */
+    public long getOldestCommandAgeMillis() {
+        long nowNanos = System.nanoTime();
+        for (Message message : mailbox) {
+            if (message.isCommand() && !message.claimed.get()) {
+                return TimeUnit.NANOSECONDS.toMillis(nowNanos - message.enqueuedNanos);
+            }
+        }
+        return 0;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    public long getMessageCount(MessageType type) {
+        return messageCounts.get(type.ordinal());
+    }
+
+    /**
+     * Returns the number of messages that were dropped because a newer one with the same key was posted.
+     *
+     * @return the number of superseded messages
+     */
+    public long getSupersededCount() {
+        return supersededCount.get();
+    }
+
+    public double getAverageQueueLatencyMillis(MessageType type) {
+        long count = messageCounts.get(type.ordinal());
+        if (count == 0) {
+            return 0;
+        }
+        return (double) totalLatencyNanos.get(type.ordinal()) / count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double getMaxQueueLatencyMillis(MessageType type) {
+        return (double) maxLatencyNanos.get(type.ordinal()) / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Returns a human readable summary of the queue latencies, for logging purposes.
+     *
+     * @return the summary as a {@link String}
+     */
+    public String getStatisticsSummary() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("depth=").append(getQueueDepth());
+        builder.append(", commands=").append(getPendingCommandCount());
+        builder.append(", oldest=").append(getOldestCommandAgeMillis()).append("ms");
+        builder.append(", superseded=").append(getSupersededCount());
+        builder.append(", dropped=").append(getDroppedCount());
+        builder.append(", rejected=").append(getRejectedCount());
+        builder.append(", expired=").append(getExpiredCount());
+        for (MessageType type : MessageType.values()) {
+            builder.append(String.format(", %s[count=%d, avg=%.1fms, max=%.1fms]", type, getMessageCount(type),
+                    getAverageQueueLatencyMillis(type), getMaxQueueLatencyMillis(type)));
+        }
+        return builder.toString();
+    }
+
+    private void recordLatency(MessageType type, long latencyNanos) {
+        int index = type.ordinal();
+        messageCounts.incrementAndGet(index);
+        totalLatencyNanos.addAndGet(index, latencyNanos);
+        maxLatencyNanos.accumulateAndGet(index, latencyNanos, Math::max);
+    }
+
+    private void processMailbox() {
+        logger.trace("processMailbox(): actor {} started on {}.", name, Thread.currentThread());
+        worker = Thread.currentThread();
+        try {
+            runMailbox();
+        } finally {
+            worker = null;
+            terminated.complete(null);
+        }
+    }
+
+    private void runMailbox() {
+        try {
+            while (!stopped) {
+                Message message;
+                try {
+                    message = mailbox.take();
+                } catch (InterruptedException e) {
+                    logger.trace("processMailbox(): actor {} interrupted while waiting.", name);
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+
+                Object key = message.key;
+                if (key != null) {
+                    pendingByKey.remove(key, message);
+                }
+                if (!claim(message)) {
+                    // superseded, dropped or cancelled
+                    continue;
+                }
+
+                if (message.isExpired(System.nanoTime())) {
+                    expiredCount.incrementAndGet();
+                    logger.warn("{} message could not be processed in time by actor {}, dropped.", message.type,
+                            name);
+                    message.future.completeExceptionally(new TimeoutException());
+                    continue;
+                }
+
+                if (message.type == MessageType.POLL) {
+                    pollQueued.set(false);
+                }
+
+                recordLatency(message.type, System.nanoTime() - message.enqueuedNanos);
+
+                try {
+                    message.job.run();
+                    message.future.complete(null);
+                } catch (RuntimeException e) {
+                    logger.warn("processMailbox(): {} message failed in actor {}: {}", message.type, name,
+                            e.toString());
+                    message.future.completeExceptionally(e);
+                } catch (Throwable e) {
+                    // an error thrown by a single message must not silently stop all the communications of the bridge
+                    logger.error("processMailbox(): {} message failed in actor {}", message.type, name, e);
+                    message.future.completeExceptionally(e);
+                }
+            }
+        } finally {
+            // whatever made the loop end, the messages posted from now on are rejected instead of never processed
+            stopped = true;
+
+            int discarded = mailbox.size();
+            Message message;
+            while ((message = mailbox.poll()) != null) {
+                discard(message, DiscardedException.Reason.STOPPED);
+            }
+            pendingByKey.clear();
+            logger.trace("processMailbox(): actor {} stopped, {} pending messages discarded.", name, discarded);
+        }
+    }
+}
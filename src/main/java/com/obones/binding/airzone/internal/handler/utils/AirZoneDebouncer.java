@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.internal.handler.utils;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link AirZoneDebouncer} coalesces bursts of triggers into a single run of a job.
+ * <P>
+ * The job runs once no trigger was received for the quiet period, but never later than the maximum delay after the
+ * first trigger of the burst, so that a steady stream of triggers cannot postpone it forever. A trigger received while
+ * the job is running leads to another run.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class AirZoneDebouncer {
+    private @NonNullByDefault({}) final Logger logger = LoggerFactory.getLogger(AirZoneDebouncer.class);
+
+    /**
+     * Runs a task after a delay, replaced by a fake one in the tests.
+     */
+    @FunctionalInterface
+    public interface Scheduler {
+        Future<?> schedule(Runnable task, long delayNanos);
+    }
+
+    private final Scheduler scheduler;
+    private final LongSupplier nanoClock;
+    private final Runnable job;
+    private final long quietNanos;
+    private final long maxDelayNanos;
+
+    private @Nullable Future<?> pendingJob = null;
+    private long firstTriggerNanos = 0;
+    private long lastTriggerNanos = 0;
+    private long runCount = 0;
+
+    public AirZoneDebouncer(ScheduledExecutorService scheduler, long quietMsecs, long maxDelayMsecs, Runnable job) {
+        this((task, delayNanos) -> scheduler.schedule(task, delayNanos, TimeUnit.NANOSECONDS), System::nanoTime,
+                quietMsecs, maxDelayMsecs, job);
+    }
+
+    public AirZoneDebouncer(Scheduler scheduler, LongSupplier nanoClock, long quietMsecs, long maxDelayMsecs,
+            Runnable job) {
+        this.scheduler = scheduler;
+        this.nanoClock = nanoClock;
+        this.job = job;
+        this.quietNanos = TimeUnit.MILLISECONDS.toNanos(quietMsecs);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(quietMsecs, maxDelayMsecs));
+    }
+
+    /**
+     * Requests a run of the job, which will happen after the quiet period unless other triggers follow.
+     */
+    public synchronized void trigger() {
+        long now = nanoClock.getAsLong();
+        lastTriggerNanos = now;
+        if (pendingJob == null) {
+            firstTriggerNanos = now;
+            schedule(quietNanos);
+        }
+    }
+
+    /**
+     * Cancels the pending run of the job, if any.
+     */
+    public synchronized void cancel() {
+        Future<?> pendingJob = this.pendingJob;
+        if (pendingJob != null) {
+            pendingJob.cancel(false);
+            this.pendingJob = null;
+        }
+    }
+
+    /**
+     * Returns how many times the job was run.
+     *
+     * @return the number of runs
+     */
+    public synchronized long getRunCount() {
+        return runCount;
+    }
+
+    private void schedule(long delayNanos) {
+        try {
+            pendingJob = scheduler.schedule(this::expired, delayNanos);
+        } catch (RejectedExecutionException e) {
+            logger.debug("schedule(): scheduler is shut down, dropping the trigger.");
+            pendingJob = null;
+        }
+    }
+
+    private void expired() {
+        synchronized (this) {
+            if (pendingJob == null) {
+                // cancelled in the meantime
+                return;
+            }
+
+            long now = nanoClock.getAsLong();
+            long deadline = Math.min(lastTriggerNanos + quietNanos, firstTriggerNanos + maxDelayNanos);
+            if (deadline - now > 0) {
+                schedule(deadline - now);
+                return;
+            }
+
+            // later triggers start a new burst
+            pendingJob = null;
+            runCount++;
+        }
+
+        try {
+            job.run();
+        } catch (RuntimeException e) {
+            logger.warn("Debounced job failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.internal.handler.utils;
+
+import java.util.Collection;
+import java.util.Objects;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.obones.binding.airzone.internal.api.model.AirZoneHvacZone;
+
+/**
+ * The {@link AirZonePollCadence} decides how long to wait before the next poll of the bridge.
+ * <P>
+ * The cadence adapts to the activity of the installation:
+ * <UL>
+ * <LI>right after a command, or when a zone changes its on/off state, mode or demand, polling is fast for a short
+ * period so that the consequences are seen quickly,</LI>
+ * <LI>when all zones are off and nothing changes, the interval doubles at each poll, up to a ceiling,</LI>
+ * <LI>otherwise, the regular refresh interval is used.</LI>
+ * </UL>
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class AirZonePollCadence {
+    /**
+     * How long polling stays fast after some activity was detected.
+     */
+    public static final long FAST_POLLING_DURATION_MSECS = 60000L;
+
+    private final long refreshMsecs;
+    private final long fastRefreshMsecs;
+    private final long maxRefreshMsecs;
+
+    private long fastUntilMsecs = 0;
+    private int stableOffPolls = 0;
+    private @Nullable Integer lastSignature = null;
+
+    public AirZonePollCadence(long refreshMsecs, long fastRefreshMsecs, long maxRefreshMsecs) {
+        this.refreshMsecs = refreshMsecs;
+        this.fastRefreshMsecs = Math.min(fastRefreshMsecs, refreshMsecs);
+        this.maxRefreshMsecs = Math.max(maxRefreshMsecs, refreshMsecs);
+    }
+
+    /**
+     * To be called when a command was sent to the bridge, switches to fast polling.
+     *
+     * @param nowMsecs the current time in milliseconds
+     */
+    public synchronized void commandSent(long nowMsecs) {
+        fastUntilMsecs = nowMsecs + FAST_POLLING_DURATION_MSECS;
+        stableOffPolls = 0;
+    }
+
+    /**
+     * To be called with the zones retrieved by a poll, adapts the cadence to their activity.
+     *
+     * @param zones the zones as given by the latest poll
+     * @param nowMsecs the current time in milliseconds
+     */
+    public synchronized void zonesUpdated(Collection<AirZoneHvacZone> zones, long nowMsecs) {
+        boolean anyOn = false;
+        int signature = 1;
+        for (AirZoneHvacZone zone : zones) {
+            anyOn |= (zone.getOn() != 0);
+            signature = 31 * signature + Objects.hash(zone.getSystemID(), zone.getZoneID(), zone.getOn(),
+                    zone.getMode(), zone.getAirDemand(), zone.getFloorDemand(), zone.getHeatDemand(),
+                    zone.getColdDemand());
+        }
+
+        Integer lastSignature = this.lastSignature;
+        boolean changed = (lastSignature != null) && (lastSignature != signature);
+        this.lastSignature = signature;
+
+        if (changed) {
+            fastUntilMsecs = nowMsecs + FAST_POLLING_DURATION_MSECS;
+        }
+
+        if (anyOn || changed || zones.isEmpty()) {
+            stableOffPolls = 0;
+        } else if (stableOffPolls < Integer.SIZE) {
+            stableOffPolls++;
+        }
+    }
+
+    /**
+     * Returns the delay to wait for before the next poll.
+     *
+     * @param nowMsecs the current time in milliseconds
+     * @return the delay in milliseconds
+     */
+    public synchronized long getNextDelayMsecs(long nowMsecs) {
+        if (nowMsecs < fastUntilMsecs) {
+            return fastRefreshMsecs;
+        }
+
+        long delay = refreshMsecs;
+        for (int i = 0; (i < stableOffPolls) && (delay < maxRefreshMsecs); i++) {
+            delay *= 2;
+        }
+        return Math.min(delay, maxRefreshMsecs);
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.internal.jfr;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The {@link AirZoneCommandEvent} covers a stage of the lifecycle of a command sent to a channel:
+ * <UL>
+ * <LI>{@link #STAGE_QUEUED}: the command is posted to the bridge,</LI>
+ * <LI>{@link #STAGE_SENT}: the command is sent to the web server, unless the zone already had the requested value,</LI>
+ * <LI>{@link #STAGE_CONFIRMED} or {@link #STAGE_REVERTED}: the first state retrieved after the command was sent
+ * matches the command or contradicts it.</LI>
+ * </UL>
+ * A command that never reaches the web server ends with one of these stages instead:
+ * <UL>
+ * <LI>{@link #STAGE_REJECTED}: the bridge is not running or its command queue is full,</LI>
+ * <LI>{@link #STAGE_SUPERSEDED}: a newer command for the same channel was posted while it was waiting,</LI>
+ * <LI>{@link #STAGE_DROPPED}: it made room for a newer command or the bridge stopped while it was waiting,</LI>
+ * <LI>{@link #STAGE_EXPIRED}: it waited for longer than the command timeout.</LI>
+ * </UL>
+ * All the events of a command share its identifier.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+@Name(AirZoneFlightRecorder.EVENT_PREFIX + "Command")
+@Label("AirZone Command")
+@Description("A stage of the lifecycle of a command sent to an AirZone channel")
+@Category({ AirZoneFlightRecorder.CATEGORY_OPENHAB, AirZoneFlightRecorder.CATEGORY_AIRZONE })
+public class AirZoneCommandEvent extends Event {
+    public static final String STAGE_QUEUED = "queued";
+    public static final String STAGE_SENT = "sent";
+    public static final String STAGE_CONFIRMED = "confirmed";
+    public static final String STAGE_REVERTED = "reverted";
+    public static final String STAGE_REJECTED = "rejected";
+    public static final String STAGE_SUPERSEDED = "superseded";
+    public static final String STAGE_DROPPED = "dropped";
+    public static final String STAGE_EXPIRED = "expired";
+
+    @Label("Command Identifier")
+    public long commandId;
+
+    @Label("Channel")
+    public String channel = "";
+
+    @Label("Command")
+    public String command = "";
+
+    @Label("Stage")
+    public String stage = "";
+
+    @Label("Since Command")
+    @Description("Time elapsed since the command was received from openHAB")
+    @Timespan(Timespan.NANOSECONDS)
+    public long sinceCommand;
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.internal.jfr;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.thing.ChannelUID;
+import org.openhab.core.types.Command;
+
+/**
+ * This is the entry point for emitting the Java Flight Recorder events of the binding.
+ *
+ * It provides the following methods:
+ * <ul>
+ * <li>{@link #beginHttpExchange}, {@link #beginPoll} and {@link #beginCommand} return a started event, or null when
+ * the event is not being recorded,</li>
+ * <li>{@link #commandStage} records an instant stage of a command,</li>
+ * <li>{@link #nextCommandId} returns the identifier that correlates the events of a command.</li>
+ * </ul>
+ * <p>
+ * The {@code jdk.jfr} package is an optional import of the bundle: when the runtime does not provide it, no event class
+ * is ever loaded and all these methods do nothing. When it is provided but nothing is recording, the events are
+ * dropped right after their creation, as the Flight Recorder API intends.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class AirZoneFlightRecorder {
+    static final String EVENT_PREFIX = "com.obones.binding.airzone.";
+    static final String CATEGORY_OPENHAB = "openHAB";
+    static final String CATEGORY_AIRZONE = "AirZone";
+
+    private static final boolean AVAILABLE = isFlightRecorderAvailable();
+    private static final AtomicLong commandIds = new AtomicLong();
+
+    private AirZoneFlightRecorder() {
+    }
+
+    private static boolean isFlightRecorderAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, AirZoneFlightRecorder.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    public static long nextCommandId() {
+        return AVAILABLE ? commandIds.incrementAndGet() : 0;
+    }
+
+    public static @Nullable AirZoneHttpExchangeEvent beginHttpExchange() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        AirZoneHttpExchangeEvent event = new AirZoneHttpExchangeEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    public static @Nullable AirZonePollEvent beginPoll() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        AirZonePollEvent event = new AirZonePollEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    public static @Nullable AirZoneCommandEvent beginCommand() {
+        if (!AVAILABLE) {
+            return null;
+        }
+        AirZoneCommandEvent event = new AirZoneCommandEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Records a stage of a command that has no duration of its own.
+     *
+     * @param commandId the identifier of the command
+     * @param channel the channel the command was sent to
+     * @param command the command
+     * @param stage the stage, one of the {@code STAGE_} constants of {@link AirZoneCommandEvent}
+     * @param commandNanos the {@link System#nanoTime} at which the command was received
+     */
+    public static void commandStage(long commandId, ChannelUID channel, Command command, String stage,
+            long commandNanos) {
+        AirZoneCommandEvent event = beginCommand();
+        if (event != null) {
+            event.commandId = commandId;
+            event.channel = channel.getAsString();
+            event.command = command.toFullString();
+            event.stage = stage;
+            event.sinceCommand = System.nanoTime() - commandNanos;
+            event.commit();
+        }
+    }
+}
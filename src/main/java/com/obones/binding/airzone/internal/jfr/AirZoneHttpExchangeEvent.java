@@ -0,0 +1,61 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.internal.jfr;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The {@link AirZoneHttpExchangeEvent} covers a request sent to a web server, from the moment it was allowed to be
+ * sent until its response was received.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+@Name(AirZoneFlightRecorder.EVENT_PREFIX + "HttpExchange")
+@Label("AirZone HTTP Exchange")
+@Description("A request sent to an AirZone web server")
+@Category({ AirZoneFlightRecorder.CATEGORY_OPENHAB, AirZoneFlightRecorder.CATEGORY_AIRZONE })
+public class AirZoneHttpExchangeEvent extends Event {
+    @Label("Web Server")
+    public String webServer = "";
+
+    @Label("Method")
+    public String method = "";
+
+    @Label("Resource")
+    public String resource = "";
+
+    @Label("Request Size")
+    @DataAmount
+    public long requestBytes;
+
+    @Label("Response Size")
+    @DataAmount
+    public long responseBytes;
+
+    @Label("Outcome")
+    @Description("success, error, timeout or interrupted; the local API does not give the HTTP status")
+    public String outcome = "";
+
+    @Label("Pacing Wait")
+    @Description("Time the request waited for before being allowed to be sent")
+    @Timespan(Timespan.NANOSECONDS)
+    public long pacingWait;
+}
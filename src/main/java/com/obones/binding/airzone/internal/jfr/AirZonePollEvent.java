@@ -0,0 +1,50 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.internal.jfr;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The {@link AirZonePollEvent} covers a poll cycle of a bridge.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+@Name(AirZoneFlightRecorder.EVENT_PREFIX + "Poll")
+@Label("AirZone Poll")
+@Description("A poll cycle of an AirZone bridge")
+@Category({ AirZoneFlightRecorder.CATEGORY_OPENHAB, AirZoneFlightRecorder.CATEGORY_AIRZONE })
+public class AirZonePollEvent extends Event {
+    @Label("Bridge")
+    public String bridge = "";
+
+    @Label("Cycle")
+    public long cycle;
+
+    @Label("Zones")
+    @Description("Number of zones known after the poll")
+    public int zones;
+
+    @Label("Channels Updated")
+    @Description("Number of channel states published by the things of the bridge")
+    public long channelsUpdated;
+
+    @Label("Skipped")
+    @Description("Whether the web server did not respond to the probe, in which case nothing was retrieved")
+    public boolean skipped;
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.internal.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.io.monitor.MeterRegistryProvider;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.obones.binding.airzone.internal.api.AirZoneApiStatistics;
+import com.obones.binding.airzone.internal.handler.AirZoneBridgeHandler;
+import com.obones.binding.airzone.internal.handler.utils.AirZoneBridgeActor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.BaseUnits;
+
+/**
+ * The {@link AirZoneMeterBinder} exports the statistics of each running bridge to the Micrometer registry of openHAB,
+ * tagged with the UID of the bridge.
+ * <P>
+ * Almost all the meters are function based: they read the counters the bridge maintains anyway when the registry is
+ * scraped, so that exporting the metrics costs nothing on the request and poll paths. The only exception is the
+ * distribution of the fields changed by each state update, which is fed by the statistics of the bridge.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+@Component(immediate = true)
+public class AirZoneMeterBinder implements AirZoneMetrics.Listener {
+    private @NonNullByDefault({}) final Logger logger = LoggerFactory.getLogger(AirZoneMeterBinder.class);
+
+    private static final String PREFIX = "airzone.";
+    private static final String TAG_BRIDGE = "bridge";
+
+    // the HTTP methods and resources of the AirZone local API used by the binding
+    private static final String[][] REQUESTS = { { "POST", "hvac" }, { "PUT", "hvac" }, { "POST", "webserver" },
+            { "POST", "version" } };
+
+    private final MeterRegistry registry;
+    private final Map<AirZoneBridgeHandler, List<Meter>> bridgeMeters = new ConcurrentHashMap<>();
+
+    @Activate
+    public AirZoneMeterBinder(final @Reference MeterRegistryProvider meterRegistryProvider) {
+        registry = meterRegistryProvider.getOHMeterRegistry();
+        AirZoneMetrics.setListener(this);
+    }
+
+    @Deactivate
+    protected void deactivate() {
+        AirZoneMetrics.setListener(null);
+        bridgeMeters.keySet().forEach(b -> b.getApiManager().getStatistics().setStateUpdateListener(null));
+        bridgeMeters.values().forEach(meters -> meters.forEach(registry::remove));
+        bridgeMeters.clear();
+    }
+
+    @Override
+    public void bridgeAdded(AirZoneBridgeHandler bridgeHandler) {
+        Tags tags = Tags.of(TAG_BRIDGE, bridgeHandler.getThing().getUID().getAsString());
+        List<Meter> meters = new ArrayList<>();
+
+        AirZoneApiStatistics statistics = bridgeHandler.getApiManager().getStatistics();
+        for (String[] request : REQUESTS) {
+            Tags requestTags = tags.and("method", request[0], "resource", request[1]);
+            AirZoneApiStatistics.Counters counters = statistics.getCounters(request[0], request[1]);
+            meters.add(FunctionTimer
+                    .builder(PREFIX + "requests", counters, AirZoneApiStatistics.Counters::getRequests,
+                            AirZoneApiStatistics.Counters::getRoundTripNanos, TimeUnit.NANOSECONDS)
+                    .tags(requestTags).description("Requests sent to the web server").register(registry));
+            meters.add(FunctionCounter.builder(PREFIX + "requests.errors", counters, c -> c.getErrors())
+                    .tags(requestTags).description("Requests that failed, timeouts excluded").register(registry));
+            meters.add(FunctionCounter.builder(PREFIX + "requests.timeouts", counters, c -> c.getTimeouts())
+                    .tags(requestTags).description("Requests the web server did not answer in time")
+                    .register(registry));
+        }
+        meters.add(FunctionCounter
+                .builder(PREFIX + "requests.pacing.wait", statistics, s -> s.getPacingWaitMsecs() / 1000.0)
+                .tags(tags).baseUnit(BaseUnits.SECONDS).description("Time requests waited for before being sent")
+                .register(registry));
+        meters.add(TimeGauge.builder(PREFIX + "poll.duration", statistics, TimeUnit.MILLISECONDS,
+                s -> s.getLastPollMsecs()).tags(tags).description("Duration of the latest poll").register(registry));
+        meters.add(TimeGauge.builder(PREFIX + "zones.age", bridgeHandler, TimeUnit.MILLISECONDS, b -> {
+            long ageMsecs = b.getApiManager().getZonesAgeMsecs();
+            return (ageMsecs < 0) ? Double.NaN : ageMsecs;
+        }).tags(tags).description("Age of the latest known state of the zones").register(registry));
+
+        meters.add(Gauge.builder(PREFIX + "queue.depth", bridgeHandler, actorValue(a -> a.getPendingCommandCount()))
+                .tags(tags).description("Commands waiting to be sent to the web server").register(registry));
+        meters.add(Gauge.builder(PREFIX + "mailbox.depth", bridgeHandler, actorValue(a -> a.getQueueDepth()))
+                .tags(tags).description("Messages waiting to be processed by the bridge").register(registry));
+        meters.add(TimeGauge
+                .builder(PREFIX + "queue.age", bridgeHandler, TimeUnit.MILLISECONDS,
+                        actorValue(a -> a.getOldestCommandAgeMillis()))
+                .tags(tags).description("Time the oldest waiting command has been waiting for").register(registry));
+        meters.add(FunctionCounter
+                .builder(PREFIX + "commands.coalesced", bridgeHandler, actorValue(a -> a.getSupersededCount()))
+                .tags(tags).description("Commands replaced by a newer one before being sent").register(registry));
+        meters.add(FunctionCounter
+                .builder(PREFIX + "commands.dropped", bridgeHandler,
+                        actorValue(a -> a.getDroppedCount() + a.getRejectedCount() + a.getExpiredCount()))
+                .tags(tags).description("Commands dropped because the queue was full or they were too late")
+                .register(registry));
+        meters.add(FunctionCounter
+                .builder(PREFIX + "commands.suppressed", bridgeHandler,
+                        b -> b.getApiManager().getSuppressedWriteCount())
+                .tags(tags).description("Commands not sent because the zone already had the requested value")
+                .register(registry));
+
+        DistributionSummary changedFields = DistributionSummary.builder(PREFIX + "state.changed.fields").tags(tags)
+                .description("Fields of the zones changed by each poll or command response").register(registry);
+        meters.add(changedFields);
+        statistics.setStateUpdateListener(changedFields::record);
+
+        meters.add(Gauge.builder(PREFIX + "poll.channel.updates", bridgeHandler, b -> b.getCycleChannelUpdates())
+                .tags(tags).description("Channel updates emitted by the latest poll").register(registry));
+        meters.add(FunctionCounter
+                .builder(PREFIX + "channel.updates", bridgeHandler, b -> b.getTotalChannelUpdates()).tags(tags)
+                .description("Channel updates emitted by the polls").register(registry));
+
+        List<Meter> previousMeters = bridgeMeters.put(bridgeHandler, meters);
+        if (previousMeters != null) {
+            previousMeters.forEach(registry::remove);
+        }
+        logger.debug("bridgeAdded(): {} meters registered for bridge {}.", meters.size(),
+                bridgeHandler.getThing().getUID());
+    }
+
+    @Override
+    public void bridgeRemoved(AirZoneBridgeHandler bridgeHandler) {
+        List<Meter> meters = bridgeMeters.remove(bridgeHandler);
+        bridgeHandler.getApiManager().getStatistics().setStateUpdateListener(null);
+        if (meters != null) {
+            meters.forEach(registry::remove);
+        }
+    }
+
+    // the actor only exists while the bridge is initialized
+    private static ToDoubleFunction<AirZoneBridgeHandler> actorValue(ToDoubleFunction<AirZoneBridgeActor> function) {
+        return bridgeHandler -> {
+            @Nullable
+            AirZoneBridgeActor actor = bridgeHandler.getActor();
+            return (actor != null) ? function.applyAsDouble(actor) : Double.NaN;
+        };
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.internal.metrics;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+import com.obones.binding.airzone.internal.handler.AirZoneBridgeHandler;
+
+/**
+ * The {@link AirZoneMetrics} keeps track of the running bridges on behalf of the metrics exporter.
+ * <P>
+ * This class does not depend on Micrometer so that the bridges can always call it: they are only exported when the
+ * {@link AirZoneMeterBinder} is active, that is when openHAB provides a meter registry.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class AirZoneMetrics {
+    /**
+     * Informed of the bridges that start and stop.
+     */
+    public interface Listener {
+        void bridgeAdded(AirZoneBridgeHandler bridgeHandler);
+
+        void bridgeRemoved(AirZoneBridgeHandler bridgeHandler);
+    }
+
+    private static final Set<AirZoneBridgeHandler> bridgeHandlers = new LinkedHashSet<>();
+    private static @Nullable Listener listener = null;
+
+    private AirZoneMetrics() {
+    }
+
+    public static synchronized void bridgeAdded(AirZoneBridgeHandler bridgeHandler) {
+        Listener listener = AirZoneMetrics.listener;
+        if (bridgeHandlers.add(bridgeHandler) && (listener != null)) {
+            listener.bridgeAdded(bridgeHandler);
+        }
+    }
+
+    public static synchronized void bridgeRemoved(AirZoneBridgeHandler bridgeHandler) {
+        Listener listener = AirZoneMetrics.listener;
+        if (bridgeHandlers.remove(bridgeHandler) && (listener != null)) {
+            listener.bridgeRemoved(bridgeHandler);
+        }
+    }
+
+    /**
+     * Sets the listener, which is told about the bridges already running right away.
+     *
+     * @param newListener the listener, null to remove the current one
+     */
+    public static synchronized void setListener(@Nullable Listener newListener) {
+        listener = newListener;
+        if (newListener != null) {
+            bridgeHandlers.forEach(newListener::bridgeAdded);
+        }
+    }
+}
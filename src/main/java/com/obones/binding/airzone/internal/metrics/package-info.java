@@ -0,0 +1,18 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+/**
+ *
+ * Classes exporting the internal statistics of the bridges to the metrics of openHAB.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+package com.obones.binding.airzone.internal.metrics;
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.internal.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.OpenHAB;
+import org.openhab.core.thing.ThingUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This is a helper class for persisting the latest known state of a bridge between restarts.
+ * <p>
+ * There is one file per bridge in the <code>airzone</code> folder of the openHAB userdata. It is written to a
+ * temporary file first, then moved in place, so that a crash while writing never leaves a truncated snapshot.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class SnapshotStore {
+    private static final String FOLDER_NAME = "airzone";
+    private static final String FILE_EXTENSION = ".json";
+
+    private @NonNullByDefault({}) final Logger logger = LoggerFactory.getLogger(SnapshotStore.class);
+
+    private final Path file;
+    private @Nullable String latestContent = null;
+
+    public SnapshotStore(ThingUID bridgeUID) {
+        this(Paths.get(OpenHAB.getUserDataFolder(), FOLDER_NAME), bridgeUID);
+    }
+
+    public SnapshotStore(Path folder, ThingUID bridgeUID) {
+        file = folder.resolve(bridgeUID.getAsString().replaceAll("[^A-Za-z0-9_-]", "_") + FILE_EXTENSION);
+    }
+
+    /**
+     * Reads the snapshot saved by the previous run.
+     *
+     * @return the content of the snapshot, null if there is none
+     */
+    public @Nullable String load() {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            String content = Files.readString(file, StandardCharsets.UTF_8);
+            latestContent = content;
+            return content;
+        } catch (IOException e) {
+            logger.warn("load(): unable to read snapshot {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the time at which the snapshot was saved.
+     *
+     * @return the time the snapshot file was last written, the current time if it cannot be determined
+     */
+    public Instant getSavedTime() {
+        try {
+            return Files.getLastModifiedTime(file).toInstant();
+        } catch (IOException e) {
+            return Instant.now();
+        }
+    }
+
+    /**
+     * Saves the given snapshot, unless it is the same as the one already saved.
+     *
+     * @param content the content of the snapshot
+     * @return true if the snapshot was written
+     */
+    public boolean save(String content) {
+        if (content.equals(latestContent)) {
+            return false;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(temporaryFile, content, StandardCharsets.UTF_8);
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            latestContent = content;
+            return true;
+        } catch (IOException e) {
+            logger.warn("save(): unable to write snapshot {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Removes the saved snapshot, when the bridge it belongs to is removed.
+     */
+    public void delete() {
+        try {
+            Files.deleteIfExists(file);
+            latestContent = null;
+        } catch (IOException e) {
+            logger.warn("delete(): unable to delete snapshot {}: {}", file, e.getMessage());
+        }
+    }
+}
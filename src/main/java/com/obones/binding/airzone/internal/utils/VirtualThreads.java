@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ ** See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.internal.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * This is a helper class for using virtual threads when the runtime supports them.
+ *
+ * It provides the following methods:
+ * <ul>
+ * <li>{@link #isAvailable} tells whether virtual threads can be created,</li>
+ * <li>{@link #newThreadFactory} returns a factory creating named virtual threads.</li>
+ * </ul>
+ * <p>
+ * The binding is still built for Java 17, so the Java 21 API is reached through reflection.
+ *
+ * @author Olivier Sannier - Initial contribution
+ */
+@NonNullByDefault
+public class VirtualThreads {
+    private static final int MINIMUM_JAVA_VERSION = 21;
+
+    /*
+     * ************************
+     * ***** Constructors *****
+     */
+
+    /**
+     * Suppress default constructor for creating a non-instantiable class.
+     */
+    private VirtualThreads() {
+        throw new AssertionError();
+    }
+
+    // Class access methods
+
+    /**
+     * Indicates whether virtual threads are available in the current runtime.
+     *
+     * @return true when running on Java 21 or later.
+     */
+    public static boolean isAvailable() {
+        return Runtime.version().feature() >= MINIMUM_JAVA_VERSION;
+    }
+
+    /**
+     * Returns a factory creating virtual threads whose names start with the given prefix.
+     *
+     * @param namePrefix the prefix of the thread names, a counter is appended to it.
+     * @return the factory, or null if virtual threads are not available.
+     */
+    public static @Nullable ThreadFactory newThreadFactory(String namePrefix) {
+        if (!isAvailable()) {
+            return null;
+        }
+
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Method nameMethod = builderClass.getMethod("name", String.class, long.class);
+            builder = nameMethod.invoke(builder, namePrefix + "-", 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // preview or restricted runtime, let the caller fall back to platform threads
+            return null;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import com.obones.binding.airzone.internal.api.AirZoneApiStatistics;
+import com.obones.binding.airzone.internal.api.AirZoneApiStatistics.Outcome;
+
+/**
+ * JUnit test suite for the statistics of the requests sent to the web server
+ *
+ * @author Olivier Sannier - Initial contribution.
+ */
+@NonNullByDefault
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class TestApiStatistics {
+    @Test
+    @Order(1)
+    public void testCountersPerResource() {
+        AirZoneApiStatistics statistics = new AirZoneApiStatistics();
+
+        statistics.recordRequest("POST", "hvac", Outcome.SUCCESS, 0);
+        statistics.recordRequest("POST", "hvac", Outcome.ERROR, 0);
+        statistics.recordRequest("PUT", "hvac", Outcome.TIMEOUT, 0);
+        statistics.recordRequest("POST", "version", Outcome.SUCCESS, 0);
+
+        assertEquals(4L, statistics.getTotals().getRequests());
+        assertEquals(1L, statistics.getTotals().getErrors());
+        assertEquals(1L, statistics.getTotals().getTimeouts());
+        assertEquals(2L, statistics.getCounters().get("POST hvac").getRequests());
+        assertEquals(1L, statistics.getCounters().get("PUT hvac").getTimeouts());
+        assertEquals("POST hvac: 2/1/0, POST version: 1/0/0, PUT hvac: 1/0/1", statistics.getSummary());
+    }
+
+    @Test
+    @Order(2)
+    public void testRoundTripPercentiles() {
+        AirZoneApiStatistics statistics = new AirZoneApiStatistics();
+        assertEquals(0.0, statistics.getRoundTripPercentileMsecs(50));
+
+        // only the most recent samples are kept, the slow ones recorded first are forgotten
+        for (int i = 0; i < AirZoneApiStatistics.RECENT_SAMPLES; i++) {
+            statistics.recordRequest("POST", "hvac", Outcome.SUCCESS, TimeUnit.SECONDS.toNanos(10));
+        }
+        for (int i = 1; i <= AirZoneApiStatistics.RECENT_SAMPLES; i++) {
+            statistics.recordRequest("POST", "hvac", Outcome.SUCCESS,
+                    TimeUnit.MILLISECONDS.toNanos(i <= AirZoneApiStatistics.RECENT_SAMPLES - 2 ? 100 : 2000));
+        }
+
+        assertEquals(100.0, statistics.getRoundTripPercentileMsecs(50));
+        assertEquals(100.0, statistics.getRoundTripPercentileMsecs(95));
+        assertEquals(2000.0, statistics.getRoundTripPercentileMsecs(99.5));
+        assertEquals(2000.0, statistics.getRoundTripPercentileMsecs(100));
+    }
+
+    @Test
+    @Order(3)
+    public void testStateUpdates() {
+        AirZoneApiStatistics statistics = new AirZoneApiStatistics();
+        List<Long> recorded = new ArrayList<>();
+
+        assertFalse(statistics.isStateUpdateListened());
+        statistics.recordStateUpdate(12);
+        statistics.setStateUpdateListener(recorded::add);
+        assertTrue(statistics.isStateUpdateListened());
+        statistics.recordStateUpdate(0);
+        statistics.recordStateUpdate(3);
+        statistics.setStateUpdateListener(null);
+        assertFalse(statistics.isStateUpdateListened());
+        statistics.recordStateUpdate(1);
+
+        assertEquals(List.of(0L, 3L), recorded);
+    }
+
+    @Test
+    @Order(4)
+    public void testProbesAreKeptApart() {
+        AirZoneApiStatistics statistics = new AirZoneApiStatistics();
+
+        statistics.recordRequest("POST", "version", Outcome.SUCCESS, TimeUnit.MILLISECONDS.toNanos(100));
+        statistics.recordProbe("POST", "version", Outcome.SUCCESS, TimeUnit.SECONDS.toNanos(5));
+        statistics.recordProbe("POST", "version", Outcome.TIMEOUT, TimeUnit.SECONDS.toNanos(5));
+
+        assertEquals(1L, statistics.getTotals().getRequests());
+        assertEquals(0L, statistics.getTotals().getTimeouts());
+        assertEquals(100.0, statistics.getRoundTripPercentileMsecs(100));
+        assertEquals(1L, statistics.getCounters().get("POST version").getRequests());
+        AirZoneApiStatistics.Counters probes = statistics
+                .getCounters("POST", "version" + AirZoneApiStatistics.PROBE_SUFFIX);
+        assertEquals(2L, probes.getRequests());
+        assertEquals(1L, probes.getTimeouts());
+    }
+}
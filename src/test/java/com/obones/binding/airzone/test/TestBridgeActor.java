@@ -0,0 +1,407 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import com.obones.binding.airzone.internal.handler.utils.AirZoneBridgeActor;
+import com.obones.binding.airzone.internal.handler.utils.AirZoneBridgeActor.DiscardedException;
+import com.obones.binding.airzone.internal.handler.utils.AirZoneBridgeActor.MessageType;
+import com.obones.binding.airzone.internal.handler.utils.AirZoneBridgeActor.OverflowPolicy;
+import com.obones.binding.airzone.internal.utils.VirtualThreads;
+
+/**
+ * JUnit test suite for the bridge actor
+ *
+ * @author Olivier Sannier - Initial contribution.
+ */
+@NonNullByDefault
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class TestBridgeActor {
+    private static final int BRIDGE_COUNT = 48;
+    // only bounds the time spent waiting for something that is expected to happen, never a performance measurement
+    private static final long MAX_WAIT_MSECS = 10000;
+    private static final long HUNG_REQUEST_MSECS = 30000;
+    private static final long MAX_RESTART_MSECS = 500;
+    private static final String SETPOINT = "zone1#setpoint";
+    private static final String MODE = "zone1#mode";
+
+    private static ThreadFactory getThreadFactory(String name) {
+        ThreadFactory threadFactory = VirtualThreads.newThreadFactory(name);
+        if (threadFactory == null) {
+            threadFactory = Executors.defaultThreadFactory();
+        }
+        return threadFactory;
+    }
+
+    /**
+     * Waits for the messages posted so far to be processed, then stops the actor.
+     */
+    private static void drainAndStop(AirZoneBridgeActor actor) throws Exception {
+        CompletableFuture<@Nullable Void> drained = actor.submit(MessageType.RECONFIGURE, null, 0, () -> {
+        });
+        assertNotNull(drained);
+        drained.get(MAX_WAIT_MSECS, TimeUnit.MILLISECONDS);
+        assertTrue(actor.stop(MAX_WAIT_MSECS));
+    }
+
+    @Test
+    @Order(1)
+    public void testMessagesAreProcessedInOrder() throws Exception {
+        AirZoneBridgeActor actor = new AirZoneBridgeActor("order", getThreadFactory("order"));
+        List<Integer> processed = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            int value = i;
+            assertTrue(actor.post(MessageType.COMMAND, () -> processed.add(value)));
+        }
+        drainAndStop(actor);
+
+        assertTrue(actor.isStopped());
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), processed);
+        assertEquals(10, actor.getMessageCount(MessageType.COMMAND));
+        assertFalse(actor.post(MessageType.COMMAND, () -> fail("posted after stop")));
+    }
+
+    @Test
+    @Order(2)
+    public void testErrorInMessageDoesNotStopActor() throws Exception {
+        AirZoneBridgeActor actor = new AirZoneBridgeActor("error", getThreadFactory("error"));
+
+        CompletableFuture<@Nullable Void> failing = actor.submit(MessageType.COMMAND, null, 0, () -> {
+            throw new NoClassDefFoundError("com/obones/Missing");
+        });
+        assertNotNull(failing);
+        CompletableFuture<@Nullable Void> following = actor.submit(MessageType.COMMAND, null, 0, () -> {
+        });
+        assertNotNull(following);
+
+        following.get(1, TimeUnit.SECONDS);
+        assertTrue(failing.isCompletedExceptionally());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> failing.get());
+        assertInstanceOf(NoClassDefFoundError.class, e.getCause());
+        assertFalse(actor.isStopped());
+        assertTrue(actor.stop(1000));
+        assertNull(actor.submit(MessageType.COMMAND, null, 0, () -> fail("posted after stop")));
+    }
+
+    @Test
+    @Order(3)
+    public void testWaitingCommandIsSupersededBySameKey() throws Exception {
+        AirZoneBridgeActor actor = new AirZoneBridgeActor("supersede", getThreadFactory("supersede"));
+        CountDownLatch blocker = new CountDownLatch(1);
+        List<String> processed = new CopyOnWriteArrayList<>();
+
+        // keep the actor busy so that the following commands stay in the mailbox
+        actor.post(MessageType.COMMAND, () -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CompletableFuture<@Nullable Void> superseded = actor.submit(MessageType.COMMAND, "zone1#setpoint", 0,
+                () -> processed.add("setpoint=17"));
+        assertNotNull(superseded);
+        for (int i = 18; i <= 22; i++) {
+            String value = "setpoint=" + i;
+            actor.post(MessageType.COMMAND, "zone1#setpoint", () -> processed.add(value));
+        }
+        assertEquals(DiscardedException.Reason.SUPERSEDED,
+                assertThrows(DiscardedException.class, superseded::join).getReason());
+        actor.post(MessageType.COMMAND, "zone1#mode", () -> processed.add("mode=heat"));
+        actor.post(MessageType.COMMAND, "zone2#setpoint", () -> processed.add("zone2=19"));
+        blocker.countDown();
+        drainAndStop(actor);
+
+        assertEquals(List.of("setpoint=22", "mode=heat", "zone2=19"), processed);
+        assertEquals(5, actor.getSupersededCount());
+    }
+
+    @Test
+    @Order(4)
+    public void testCommandQueueIsBoundedAndDeadlineAware() throws Exception {
+        AirZoneBridgeActor actor = new AirZoneBridgeActor("bounded", getThreadFactory("bounded"), 3,
+                OverflowPolicy.DROP_OLDEST);
+        CountDownLatch blocker = new CountDownLatch(1);
+        List<String> processed = new CopyOnWriteArrayList<>();
+
+        // keep the actor busy so that the following commands stay in the mailbox
+        actor.post(MessageType.POLL, () -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CompletableFuture<@Nullable Void> dropped = actor.submit(MessageType.COMMAND, SETPOINT, 0,
+                () -> processed.add("setpoint1"));
+        assertNotNull(dropped);
+        CompletableFuture<@Nullable Void> cancelled = actor.submit(MessageType.COMMAND, MODE, 0,
+                () -> processed.add("cancelled"));
+        assertNotNull(cancelled);
+        assertNotNull(actor.submit(MessageType.COMMAND, null, 0, () -> processed.add("action")));
+        assertEquals(3, actor.getPendingCommandCount());
+
+        // refreshes do not count as commands
+        assertNotNull(actor.submit(MessageType.REFRESH, null, 0, () -> processed.add("refresh")));
+        assertEquals(3, actor.getPendingCommandCount());
+
+        // a full queue only makes room by dropping the waiting command for the same field
+        assertNotNull(actor.submit(MessageType.COMMAND, SETPOINT, 0, () -> processed.add("setpoint2")));
+        assertTrue(dropped.isCancelled());
+        assertEquals(DiscardedException.Reason.DROPPED,
+                assertThrows(DiscardedException.class, dropped::join).getReason());
+        assertNull(actor.submit(MessageType.COMMAND, "zone1#sleep", 0, () -> fail("posted while full")));
+        assertNull(actor.submit(MessageType.COMMAND, null, 0, () -> fail("posted while full")));
+        assertEquals(1, actor.getDroppedCount());
+        assertEquals(2, actor.getRejectedCount());
+        assertEquals(3, actor.getPendingCommandCount());
+
+        cancelled.cancel(false);
+        assertEquals(2, actor.getPendingCommandCount());
+        CompletableFuture<@Nullable Void> expired = actor.submit(MessageType.COMMAND, null, 1,
+                () -> processed.add("expired"));
+        assertNotNull(expired);
+
+        Thread.sleep(20);
+        assertTrue(actor.getOldestCommandAgeMillis() >= 20);
+        blocker.countDown();
+        drainAndStop(actor);
+
+        assertEquals(List.of("action", "refresh", "setpoint2"), processed);
+        assertEquals(1, actor.getExpiredCount());
+        assertTrue(expired.isCompletedExceptionally());
+        assertEquals(0, actor.getPendingCommandCount());
+
+        AirZoneBridgeActor rejecting = new AirZoneBridgeActor("rejecting", getThreadFactory("rejecting"), 1,
+                OverflowPolicy.REJECT);
+        CountDownLatch rejectingBlocker = new CountDownLatch(1);
+        rejecting.post(MessageType.POLL, () -> {
+            try {
+                rejectingBlocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertNotNull(rejecting.submit(MessageType.COMMAND, null, 0, () -> {
+        }));
+        assertNull(rejecting.submit(MessageType.COMMAND, null, 0, () -> fail("posted while full")));
+        assertNull(rejecting.submit(MessageType.COMMAND, SETPOINT, 0, () -> fail("posted while full")));
+        assertNotNull(rejecting.submit(MessageType.REFRESH, null, 0, () -> {
+        }));
+        assertEquals(2, rejecting.getRejectedCount());
+        rejectingBlocker.countDown();
+        assertTrue(rejecting.stop(MAX_WAIT_MSECS));
+    }
+
+    @Test
+    @Order(5)
+    public void testRestartIsNotDelayedByHungRequest() throws InterruptedException {
+        AirZoneBridgeActor actor = new AirZoneBridgeActor("hung", getThreadFactory("hung"));
+        CountDownLatch requestStarted = new CountDownLatch(1);
+        AtomicInteger interruptedRequests = new AtomicInteger();
+
+        // a request to a web server that does not answer, only aborted by an interruption
+        actor.post(MessageType.POLL, () -> {
+            requestStarted.countDown();
+            try {
+                Thread.sleep(HUNG_REQUEST_MSECS);
+            } catch (InterruptedException e) {
+                interruptedRequests.incrementAndGet();
+                Thread.currentThread().interrupt();
+            }
+        });
+        CompletableFuture<@Nullable Void> waiting = actor.submit(MessageType.COMMAND, null, 0,
+                () -> fail("processed after stop"));
+        assertNotNull(waiting);
+        assertTrue(requestStarted.await(1, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        assertTrue(actor.stop(MAX_RESTART_MSECS));
+        AirZoneBridgeActor restarted = new AirZoneBridgeActor("hung", getThreadFactory("hung"));
+        CountDownLatch firstMessage = new CountDownLatch(1);
+        restarted.post(MessageType.RECONFIGURE, firstMessage::countDown);
+        assertTrue(firstMessage.await(MAX_RESTART_MSECS, TimeUnit.MILLISECONDS));
+        long restartMsecs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(restartMsecs < MAX_RESTART_MSECS, "restart took " + restartMsecs + " ms");
+        assertEquals(1, interruptedRequests.get());
+        assertTrue(waiting.isCancelled());
+        assertEquals(DiscardedException.Reason.STOPPED,
+                assertThrows(DiscardedException.class, waiting::join).getReason());
+        assertTrue(actor.isStopped());
+        assertNull(actor.submit(MessageType.COMMAND, null, 0, () -> fail("posted after stop")));
+        assertTrue(restarted.stop(MAX_RESTART_MSECS));
+    }
+
+    @Test
+    @Order(6)
+    public void testManyBridgesDoNotStarveSharedScheduler() throws Exception {
+        // a single thread, just like a busy openHAB scheduler would behave
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+        List<AirZoneBridgeActor> actors = new ArrayList<>();
+        // stands for web servers that only answer once the test lets them do so
+        CountDownLatch webServersAnswer = new CountDownLatch(1);
+        CountDownLatch requestsInProgress = new CountDownLatch(BRIDGE_COUNT);
+        CountDownLatch pollsDone = new CountDownLatch(BRIDGE_COUNT);
+
+        try {
+            for (int i = 0; i < BRIDGE_COUNT; i++) {
+                AirZoneBridgeActor actor = new AirZoneBridgeActor("bridge" + i, getThreadFactory("bridge" + i));
+                actors.add(actor);
+
+                scheduler.execute(() -> actor.post(MessageType.POLL, () -> {
+                    requestsInProgress.countDown();
+                    try {
+                        webServersAnswer.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    pollsDone.countDown();
+                }));
+            }
+
+            // all the bridges wait for their web server at the same time, and the scheduler is still free
+            assertTrue(requestsInProgress.await(MAX_WAIT_MSECS, TimeUnit.MILLISECONDS),
+                    requestsInProgress.getCount() + " bridges did not start polling");
+            CompletableFuture<@Nullable Void> schedulerTask = new CompletableFuture<>();
+            scheduler.execute(() -> schedulerTask.complete(null));
+            schedulerTask.get(MAX_WAIT_MSECS, TimeUnit.MILLISECONDS);
+            assertEquals(BRIDGE_COUNT, pollsDone.getCount());
+
+            webServersAnswer.countDown();
+            assertTrue(pollsDone.await(MAX_WAIT_MSECS, TimeUnit.MILLISECONDS),
+                    pollsDone.getCount() + " bridges did not finish polling");
+        } finally {
+            webServersAnswer.countDown();
+            scheduler.shutdownNow();
+            for (AirZoneBridgeActor actor : actors) {
+                actor.stop(MAX_WAIT_MSECS);
+            }
+        }
+    }
+
+    @Test
+    @Order(7)
+    public void testConcurrentCommandsDoNotExceedCapacity() throws Exception {
+        int capacity = 5;
+        int posters = 32;
+        AirZoneBridgeActor actor = new AirZoneBridgeActor("concurrent", getThreadFactory("concurrent"), capacity,
+                OverflowPolicy.REJECT);
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(posters);
+
+        actor.post(MessageType.POLL, () -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < posters; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return actor.submit(MessageType.COMMAND, null, 0, () -> {
+                    }) != null;
+                }));
+            }
+            start.countDown();
+
+            int accepted = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(MAX_WAIT_MSECS, TimeUnit.MILLISECONDS)) {
+                    accepted++;
+                }
+            }
+            assertEquals(capacity, accepted);
+            assertEquals(capacity, actor.getPendingCommandCount());
+            assertEquals(posters - capacity, actor.getRejectedCount());
+        } finally {
+            executor.shutdownNow();
+            blocker.countDown();
+            actor.stop(MAX_WAIT_MSECS);
+        }
+    }
+
+    @Test
+    @Order(8)
+    public void testExitHookWaitsForSlowMessage() throws InterruptedException {
+        AirZoneBridgeActor actor = new AirZoneBridgeActor("slow", getThreadFactory("slow"));
+        CountDownLatch requestStarted = new CountDownLatch(1);
+        CountDownLatch requestAborted = new CountDownLatch(1);
+        CountDownLatch hookRun = new CountDownLatch(1);
+        AtomicInteger hooksRunBeforeAbort = new AtomicInteger();
+
+        // a request that takes its time to abort once interrupted
+        actor.post(MessageType.POLL, () -> {
+            requestStarted.countDown();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    requestAborted.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(requestStarted.await(MAX_WAIT_MSECS, TimeUnit.MILLISECONDS));
+
+        actor.whenTerminated(() -> {
+            if (requestAborted.getCount() > 0) {
+                hooksRunBeforeAbort.incrementAndGet();
+            }
+            hookRun.countDown();
+        });
+        assertFalse(actor.stop(10));
+        assertEquals(1L, hookRun.getCount(), "the exit hook ran while a message was still being processed");
+
+        requestAborted.countDown();
+        assertTrue(hookRun.await(MAX_WAIT_MSECS, TimeUnit.MILLISECONDS));
+        assertEquals(0, hooksRunBeforeAbort.get());
+
+        // once the actor is gone, the hook runs right away
+        AtomicInteger lateHooks = new AtomicInteger();
+        actor.whenTerminated(lateHooks::incrementAndGet);
+        assertEquals(1, lateHooks.get());
+    }
+}
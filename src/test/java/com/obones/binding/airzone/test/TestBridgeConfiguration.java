@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.openhab.core.config.core.Configuration;
+
+import com.obones.binding.airzone.internal.AirZoneBinding;
+import com.obones.binding.airzone.internal.config.AirZoneBridgeConfiguration;
+
+/**
+ * JUnit test suite for the binding of the bridge configuration parameters
+ *
+ * @author Olivier Sannier - Initial contribution.
+ */
+@NonNullByDefault
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class TestBridgeConfiguration {
+    private static final Path CONFIG_XML = Path.of("src/main/resources/OH-INF/config/config.xml");
+
+    @Test
+    @Order(1)
+    public void testEveryParameterHasAField() throws IOException {
+        String xml = Files.readString(CONFIG_XML, StandardCharsets.UTF_8);
+        int start = xml.indexOf("<config-description uri=\"bridge-type:airzone:bridge\">");
+        int end = xml.indexOf("</config-description>", start);
+        assertTrue((start >= 0) && (end > start));
+
+        Matcher matcher = Pattern.compile("<parameter name=\"([^\"]+)\"").matcher(xml.substring(start, end));
+        int count = 0;
+        while (matcher.find()) {
+            String name = matcher.group(1);
+            try {
+                AirZoneBridgeConfiguration.class.getField(name);
+            } catch (NoSuchFieldException e) {
+                fail("parameter " + name + " is never bound to the configuration");
+            }
+            count++;
+        }
+        assertTrue(count > 0);
+    }
+
+    @Test
+    @Order(2)
+    public void testRefreshIntervalIsBound() {
+        Configuration configuration = new Configuration(Map.of(AirZoneBridgeConfiguration.BRIDGE_REFRESH_MSECS,
+                new BigDecimal(20000), AirZoneBridgeConfiguration.BRIDGE_MAX_REFRESH_MSECS, new BigDecimal(30000),
+                AirZoneBridgeConfiguration.BRIDGE_SYSTEMS_REFRESH_MSECS, new BigDecimal(15000)));
+
+        AirZoneBridgeConfiguration unchecked = configuration.as(AirZoneBridgeConfiguration.class);
+        assertEquals(20000L, unchecked.refreshMsecs);
+
+        // the other intervals are validated against the configured refresh interval, not the default one
+        AirZoneBridgeConfiguration checked = new AirZoneBinding(unchecked).checked();
+        assertEquals(20000L, checked.refreshMsecs);
+        assertEquals(30000L, checked.maxRefreshMsecs);
+        assertEquals(new AirZoneBridgeConfiguration().systemsRefreshMsecs, checked.systemsRefreshMsecs);
+        assertEquals(new AirZoneBridgeConfiguration().fastRefreshMsecs, checked.fastRefreshMsecs);
+    }
+}
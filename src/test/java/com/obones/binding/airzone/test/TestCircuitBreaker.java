@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import com.obones.binding.airzone.internal.api.AirZoneCircuitBreaker;
+
+/**
+ * JUnit test suite for the circuit breaker protecting the web server
+ *
+ * @author Olivier Sannier - Initial contribution.
+ */
+@NonNullByDefault
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class TestCircuitBreaker {
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long PROBE_DELAY_MSECS = 30000;
+
+    private static AirZoneCircuitBreaker newBreaker() {
+        return new AirZoneCircuitBreaker(FAILURE_THRESHOLD, PROBE_DELAY_MSECS);
+    }
+
+    @Test
+    @Order(1)
+    public void testOpensAtThreshold() {
+        AirZoneCircuitBreaker breaker = newBreaker();
+        assertFalse(breaker.isOpen());
+
+        assertFalse(breaker.recordFailure());
+        assertFalse(breaker.recordFailure());
+        assertFalse(breaker.isOpen());
+
+        assertTrue(breaker.recordFailure());
+        assertTrue(breaker.isOpen());
+        assertEquals(FAILURE_THRESHOLD, breaker.getConsecutiveFailures());
+
+        // only the failure crossing the threshold reports the opening
+        assertFalse(breaker.recordFailure());
+        assertTrue(breaker.isOpen());
+    }
+
+    @Test
+    @Order(2)
+    public void testProbeDelayDoubles() {
+        AirZoneCircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            breaker.recordFailure();
+        }
+
+        assertEquals(PROBE_DELAY_MSECS, breaker.getNextProbeDelayMsecs());
+        assertEquals(2 * PROBE_DELAY_MSECS, breaker.getNextProbeDelayMsecs());
+        assertEquals(4 * PROBE_DELAY_MSECS, breaker.getNextProbeDelayMsecs());
+        assertEquals(8 * PROBE_DELAY_MSECS, breaker.getNextProbeDelayMsecs());
+
+        // 16 * 30 s would exceed the ceiling
+        assertEquals(AirZoneCircuitBreaker.MAX_PROBE_DELAY_MSECS, breaker.getNextProbeDelayMsecs());
+        assertEquals(AirZoneCircuitBreaker.MAX_PROBE_DELAY_MSECS, breaker.getNextProbeDelayMsecs());
+    }
+
+    @Test
+    @Order(3)
+    public void testRetuneOpensFailingCircuit() {
+        AirZoneCircuitBreaker breaker = newBreaker();
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertFalse(breaker.isOpen());
+
+        // lowering the threshold below the failures already recorded opens the circuit right away
+        breaker.retune(2, 1000);
+        assertTrue(breaker.isOpen());
+        assertEquals(1000L, breaker.getNextProbeDelayMsecs());
+        assertEquals(2000L, breaker.getNextProbeDelayMsecs());
+
+        // raising it again does not close an open circuit
+        breaker.retune(10, 1000);
+        assertTrue(breaker.isOpen());
+    }
+
+    @Test
+    @Order(4)
+    public void testClosesOnSuccess() {
+        AirZoneCircuitBreaker breaker = newBreaker();
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            breaker.recordFailure();
+        }
+        breaker.getNextProbeDelayMsecs();
+        breaker.getNextProbeDelayMsecs();
+        assertTrue(breaker.isOpen());
+
+        breaker.recordSuccess();
+        assertFalse(breaker.isOpen());
+        assertEquals(0, breaker.getConsecutiveFailures());
+
+        // the next opening starts probing from the initial delay again
+        for (int i = 0; i < FAILURE_THRESHOLD - 1; i++) {
+            assertFalse(breaker.recordFailure());
+        }
+        assertTrue(breaker.recordFailure());
+        assertEquals(PROBE_DELAY_MSECS, breaker.getNextProbeDelayMsecs());
+    }
+}
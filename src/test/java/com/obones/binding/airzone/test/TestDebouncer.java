@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import com.obones.binding.airzone.internal.handler.utils.AirZoneDebouncer;
+
+/**
+ * JUnit test suite for the debouncer used to publish the binding state
+ *
+ * @author Olivier Sannier - Initial contribution.
+ */
+@NonNullByDefault
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class TestDebouncer {
+    private static final long QUIET_MSECS = 50;
+    private static final long MAX_DELAY_MSECS = 300;
+
+    /**
+     * A scheduler that only runs its tasks when the test moves its clock forward.
+     */
+    private static class ManualScheduler implements AirZoneDebouncer.Scheduler {
+        private static class Task {
+            private final long dueNanos;
+            private final FutureTask<?> future;
+
+            private Task(long dueNanos, FutureTask<?> future) {
+                this.dueNanos = dueNanos;
+                this.future = future;
+            }
+        }
+
+        private final List<Task> tasks = new ArrayList<>();
+        private long nowNanos = 0;
+
+        @Override
+        public Future<?> schedule(Runnable task, long delayNanos) {
+            FutureTask<?> future = new FutureTask<>(task, null);
+            tasks.add(new Task(nowNanos + delayNanos, future));
+            return future;
+        }
+
+        public long now() {
+            return nowNanos;
+        }
+
+        /**
+         * Moves the clock forward, running the tasks that fall due on the way, in order.
+         */
+        public void advance(long msecs) {
+            long targetNanos = nowNanos + TimeUnit.MILLISECONDS.toNanos(msecs);
+            while (true) {
+                @Nullable
+                Task next = null;
+                for (Task task : tasks) {
+                    if ((task.dueNanos <= targetNanos) && ((next == null) || (task.dueNanos < next.dueNanos))) {
+                        next = task;
+                    }
+                }
+                if (next == null) {
+                    break;
+                }
+                tasks.remove(next);
+                nowNanos = Math.max(nowNanos, next.dueNanos);
+                // a cancelled task does not run
+                next.future.run();
+            }
+            nowNanos = targetNanos;
+        }
+    }
+
+    @Test
+    @Order(1)
+    public void testBurstIsCoalesced() {
+        ManualScheduler scheduler = new ManualScheduler();
+        AtomicInteger runs = new AtomicInteger();
+        AirZoneDebouncer debouncer = new AirZoneDebouncer(scheduler, scheduler::now, QUIET_MSECS, MAX_DELAY_MSECS,
+                runs::incrementAndGet);
+
+        // just like a hundred things being loaded at startup
+        for (int i = 0; i < 100; i++) {
+            debouncer.trigger();
+        }
+        scheduler.advance(QUIET_MSECS - 1);
+        assertEquals(0, runs.get());
+        scheduler.advance(1);
+        assertEquals(1, runs.get());
+
+        debouncer.trigger();
+        scheduler.advance(QUIET_MSECS);
+        assertEquals(2, runs.get());
+
+        debouncer.trigger();
+        debouncer.cancel();
+        scheduler.advance(MAX_DELAY_MSECS * 2);
+        assertEquals(2, runs.get());
+        assertEquals(2L, debouncer.getRunCount());
+    }
+
+    @Test
+    @Order(2)
+    public void testSteadyTriggersDoNotPostponeForever() {
+        ManualScheduler scheduler = new ManualScheduler();
+        AtomicInteger runs = new AtomicInteger();
+        AirZoneDebouncer debouncer = new AirZoneDebouncer(scheduler, scheduler::now, QUIET_MSECS, MAX_DELAY_MSECS,
+                runs::incrementAndGet);
+
+        // triggers keep coming faster than the quiet period, the job runs once the maximum delay is reached
+        long interval = QUIET_MSECS / 5;
+        for (long elapsed = 0; elapsed < MAX_DELAY_MSECS; elapsed += interval) {
+            assertEquals(0, runs.get(), "the job ran before the maximum delay");
+            debouncer.trigger();
+            scheduler.advance(interval);
+        }
+        assertEquals(1, runs.get(), "the job did not run at the maximum delay");
+
+        // the triggers that follow start a new burst
+        debouncer.trigger();
+        scheduler.advance(QUIET_MSECS);
+        assertEquals(2, runs.get());
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import com.obones.binding.airzone.internal.api.AirZoneExchangeRecorder;
+import com.obones.binding.airzone.internal.api.AirZoneExchangeRecorder.Exchange;
+
+/**
+ * JUnit test suite for the recorder of the latest exchanges with the web server
+ *
+ * @author Olivier Sannier - Initial contribution.
+ */
+@NonNullByDefault
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class TestExchangeRecorder {
+    @Test
+    @Order(1)
+    public void testOldestExchangesAreOverwritten() {
+        AirZoneExchangeRecorder recorder = new AirZoneExchangeRecorder(3);
+        assertTrue(recorder.getExchanges().isEmpty());
+
+        for (int i = 1; i <= 5; i++) {
+            recorder.record(i, "POST", "hvac", "success", 1000000L * i, "{\"systemID\":" + i + "}", "{}");
+        }
+        recorder.record(6, "PUT", "hvac", "timeout", 0, "x".repeat(AirZoneExchangeRecorder.MAX_BODY_CHARS + 10),
+                null);
+
+        List<Exchange> exchanges = recorder.getExchanges();
+        assertEquals(6L, recorder.getRecordedCount());
+        assertEquals(3, exchanges.size());
+        assertEquals("{\"systemID\":4}", exchanges.get(0).getRequest());
+        assertEquals(5L, exchanges.get(1).getTimeMillis());
+        assertEquals("PUT", exchanges.get(2).getMethod());
+        assertEquals("timeout", exchanges.get(2).getOutcome());
+        assertEquals("x".repeat(AirZoneExchangeRecorder.MAX_BODY_CHARS) + "...", exchanges.get(2).getRequest());
+        assertEquals("", exchanges.get(2).getResponse());
+        assertEquals(3, recorder.dump().lines().count());
+    }
+
+    @Test
+    @Order(2)
+    public void testReadersNeverSeeTornExchanges() throws InterruptedException {
+        AirZoneExchangeRecorder recorder = new AirZoneExchangeRecorder(4);
+        AtomicBoolean stop = new AtomicBoolean();
+        String[] bodies = { "a".repeat(100), "b".repeat(200), "c".repeat(300) };
+
+        Thread writer = new Thread(() -> {
+            for (long i = 0; !stop.get(); i++) {
+                String body = bodies[(int) (i % bodies.length)];
+                recorder.record(i, "POST", "hvac", "success", 0, body, body);
+            }
+        });
+        writer.start();
+        try {
+            long end = System.currentTimeMillis() + 500;
+            while (System.currentTimeMillis() < end) {
+                for (Exchange exchange : recorder.getExchanges()) {
+                    String body = bodies[(int) (exchange.getTimeMillis() % bodies.length)];
+                    assertEquals(body, exchange.getRequest());
+                    assertEquals(body, exchange.getResponse());
+                }
+            }
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+    }
+}
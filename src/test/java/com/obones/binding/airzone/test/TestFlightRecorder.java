@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import com.obones.binding.airzone.internal.jfr.AirZoneFlightRecorder;
+import com.obones.binding.airzone.internal.jfr.AirZonePollEvent;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * JUnit test suite for the flight recorder events
+ *
+ * @author Olivier Sannier - Initial contribution.
+ */
+@NonNullByDefault
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class TestFlightRecorder {
+    private static final String POLL_EVENT_NAME = "com.obones.binding.airzone.Poll";
+
+    @Test
+    @Order(1)
+    public void testEventsAreOnlyCreatedWhileRecording() throws Exception {
+        assertTrue(AirZoneFlightRecorder.isAvailable());
+        assertNull(AirZoneFlightRecorder.beginPoll());
+
+        Path file = Files.createTempFile("airzone", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(POLL_EVENT_NAME);
+            recording.start();
+
+            AirZonePollEvent event = AirZoneFlightRecorder.beginPoll();
+            assertNotNull(event);
+            event.bridge = "airzone:bridge:test";
+            event.zones = 3;
+            event.channelsUpdated = 12;
+            event.commit();
+
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertEquals(1, events.size());
+            assertEquals(POLL_EVENT_NAME, events.get(0).getEventType().getName());
+            assertEquals("airzone:bridge:test", events.get(0).getString("bridge"));
+            assertEquals(12L, events.get(0).getLong("channelsUpdated"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        assertNull(AirZoneFlightRecorder.beginPoll());
+    }
+}
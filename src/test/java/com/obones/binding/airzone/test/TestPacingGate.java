@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import com.obones.binding.airzone.internal.api.AirZonePacingGate;
+
+/**
+ * JUnit test suite for the pacing of the requests sent to a web server
+ *
+ * @author Olivier Sannier - Initial contribution.
+ */
+@NonNullByDefault
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class TestPacingGate {
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicLong sleptMsecs = new AtomicLong();
+
+    private AirZonePacingGate newGate() {
+        return new AirZonePacingGate("test", nanos::get, msecs -> {
+            sleptMsecs.addAndGet(msecs);
+            nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(msecs));
+        });
+    }
+
+    @Test
+    @Order(1)
+    public void testGateIsSharedByWebServer() {
+        AirZonePacingGate gate = AirZonePacingGate.forWebServer("192.168.1.10", 3000);
+        assertSame(gate, AirZonePacingGate.forWebServer("192.168.1.10", 3000));
+        assertFalse(gate == AirZonePacingGate.forWebServer("192.168.1.10", 3001));
+        assertFalse(gate == AirZonePacingGate.forWebServer("192.168.1.11", 3000));
+    }
+
+    @Test
+    @Order(2)
+    public void testPauseIsWaitedBetweenRequests() throws InterruptedIOException {
+        AirZonePacingGate gate = newGate();
+
+        assertEquals(0L, gate.enter(() -> false));
+        gate.leave(3000);
+        assertEquals(0L, sleptMsecs.get());
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(2000), gate.enter(() -> false));
+        assertEquals(2000L, sleptMsecs.get());
+        gate.leave(3000);
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(5000));
+        assertEquals(0L, gate.enter(() -> false));
+        assertEquals(2000L, sleptMsecs.get());
+        gate.leave(0);
+    }
+
+    @Test
+    @Order(3)
+    public void testAbandonedRequestReleasesGate() throws Exception {
+        AirZonePacingGate gate = newGate();
+
+        gate.enter(() -> false);
+        gate.leave(3000);
+        assertThrows(InterruptedIOException.class, () -> gate.enter(() -> true));
+
+        // another thread must be able to get in, the abandoned request does not hold the gate
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(3000));
+        CompletableFuture.runAsync(() -> {
+            try {
+                gate.enter(() -> false);
+                gate.leave(0);
+            } catch (InterruptedIOException e) {
+                throw new IllegalStateException(e);
+            }
+        }).get(10, TimeUnit.SECONDS);
+    }
+}
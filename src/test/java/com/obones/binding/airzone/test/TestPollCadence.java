@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import com.google.gson.Gson;
+import com.obones.binding.airzone.internal.api.model.AirZoneHvacZone;
+import com.obones.binding.airzone.internal.handler.utils.AirZonePollCadence;
+
+/**
+ * JUnit test suite for the adaptive polling cadence
+ *
+ * @author Olivier Sannier - Initial contribution.
+ */
+@NonNullByDefault
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class TestPollCadence {
+    private static final long REFRESH_MSECS = 10000;
+    private static final long FAST_REFRESH_MSECS = 2000;
+    private static final long MAX_REFRESH_MSECS = 80000;
+
+    private static List<AirZoneHvacZone> zones(int on, int mode) {
+        String json = String.format("{\"systemID\":1,\"zoneID\":1,\"on\":%d,\"mode\":%d}", on, mode);
+        return List.of(new Gson().fromJson(json, AirZoneHvacZone.class));
+    }
+
+    private static AirZonePollCadence newCadence() {
+        return new AirZonePollCadence(REFRESH_MSECS, FAST_REFRESH_MSECS, MAX_REFRESH_MSECS);
+    }
+
+    @Test
+    @Order(1)
+    public void testFastWindowAfterCommand() {
+        AirZonePollCadence cadence = newCadence();
+        assertEquals(REFRESH_MSECS, cadence.getNextDelayMsecs(0));
+
+        cadence.commandSent(1000);
+        assertEquals(FAST_REFRESH_MSECS, cadence.getNextDelayMsecs(1000));
+        assertEquals(FAST_REFRESH_MSECS,
+                cadence.getNextDelayMsecs(1000 + AirZonePollCadence.FAST_POLLING_DURATION_MSECS - 1));
+        assertEquals(REFRESH_MSECS, cadence.getNextDelayMsecs(1000 + AirZonePollCadence.FAST_POLLING_DURATION_MSECS));
+    }
+
+    @Test
+    @Order(2)
+    public void testFastWindowAfterSignatureChange() {
+        AirZonePollCadence cadence = newCadence();
+
+        // the first poll has nothing to compare with
+        cadence.zonesUpdated(zones(1, 3), 0);
+        assertEquals(REFRESH_MSECS, cadence.getNextDelayMsecs(0));
+        cadence.zonesUpdated(zones(1, 3), 10000);
+        assertEquals(REFRESH_MSECS, cadence.getNextDelayMsecs(10000));
+
+        // the mode was changed on the wall panel
+        cadence.zonesUpdated(zones(1, 2), 20000);
+        assertEquals(FAST_REFRESH_MSECS, cadence.getNextDelayMsecs(20000));
+        assertEquals(REFRESH_MSECS, cadence.getNextDelayMsecs(20000 + AirZonePollCadence.FAST_POLLING_DURATION_MSECS));
+    }
+
+    @Test
+    @Order(3)
+    public void testIntervalDoublesUpToCeilingWhileAllZonesAreOff() {
+        AirZonePollCadence cadence = newCadence();
+        long now = 0;
+
+        long[] expectedDelays = { 20000, 40000, 80000, 80000, 80000 };
+        for (long expectedDelay : expectedDelays) {
+            cadence.zonesUpdated(zones(0, 3), now);
+            assertEquals(expectedDelay, cadence.getNextDelayMsecs(now));
+            now += expectedDelay;
+        }
+
+        // a ceiling below the regular interval is raised to it
+        AirZonePollCadence flat = new AirZonePollCadence(REFRESH_MSECS, FAST_REFRESH_MSECS, 1000);
+        flat.zonesUpdated(zones(0, 3), 0);
+        assertEquals(REFRESH_MSECS, flat.getNextDelayMsecs(0));
+    }
+
+    @Test
+    @Order(4)
+    public void testCommandResetsBackOff() {
+        AirZonePollCadence cadence = newCadence();
+        for (int i = 0; i < 3; i++) {
+            cadence.zonesUpdated(zones(0, 3), i);
+        }
+        assertEquals(MAX_REFRESH_MSECS, cadence.getNextDelayMsecs(3));
+
+        cadence.commandSent(100000);
+        assertEquals(FAST_REFRESH_MSECS, cadence.getNextDelayMsecs(100000));
+        long afterFastWindow = 100000 + AirZonePollCadence.FAST_POLLING_DURATION_MSECS;
+        assertEquals(REFRESH_MSECS, cadence.getNextDelayMsecs(afterFastWindow));
+
+        // and the back off starts over from the regular interval
+        cadence.zonesUpdated(zones(0, 3), afterFastWindow);
+        assertEquals(2 * REFRESH_MSECS, cadence.getNextDelayMsecs(afterFastWindow));
+    }
+
+    @Test
+    @Order(5)
+    public void testZoneTurnedOnStopsBackOff() {
+        AirZonePollCadence cadence = newCadence();
+        for (int i = 0; i < 3; i++) {
+            cadence.zonesUpdated(zones(0, 3), i);
+        }
+
+        cadence.zonesUpdated(zones(1, 3), 3);
+        assertEquals(FAST_REFRESH_MSECS, cadence.getNextDelayMsecs(3));
+        assertEquals(REFRESH_MSECS, cadence.getNextDelayMsecs(3 + AirZonePollCadence.FAST_POLLING_DURATION_MSECS));
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.library.unit.ImperialUnits;
+import org.openhab.core.library.unit.SIUnits;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonPrimitive;
+import com.obones.binding.airzone.internal.api.AirZoneApiManager;
+import com.obones.binding.airzone.internal.api.AirZoneFetchTimes;
+import com.obones.binding.airzone.internal.api.model.AirZoneHvacZone;
+import com.obones.binding.airzone.internal.config.AirZoneBridgeConfiguration;
+
+/**
+ * JUnit test suite for the freshness of the zones used to skip redundant commands
+ *
+ * @author Olivier Sannier - Initial contribution.
+ */
+@NonNullByDefault
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class TestRedundantWrites {
+    private static final long FAST_REFRESH_MSECS = 5000;
+    private static final double DELTA = 0.0001;
+
+    private static AirZoneHvacZone zone(String fields) {
+        return new Gson().fromJson("{\"systemID\":1,\"zoneID\":1," + fields + "}", AirZoneHvacZone.class);
+    }
+
+    @Test
+    @Order(1)
+    public void testStaleSystemIsNotTrusted() {
+        AtomicLong now = new AtomicLong(1000000);
+        AirZoneFetchTimes fetchTimes = new AirZoneFetchTimes(now::get);
+        assertFalse(fetchTimes.isSystemFresh(1, FAST_REFRESH_MSECS));
+
+        fetchTimes.systemFetched(1);
+        now.addAndGet(FAST_REFRESH_MSECS - 1);
+        assertTrue(fetchTimes.isSystemFresh(1, FAST_REFRESH_MSECS));
+        // another system skipped by the polls is not made fresh by the ones that were polled
+        assertFalse(fetchTimes.isSystemFresh(2, FAST_REFRESH_MSECS));
+
+        // polls backed off while all zones are off, or a web server that no longer answers
+        now.addAndGet(1);
+        assertFalse(fetchTimes.isSystemFresh(1, FAST_REFRESH_MSECS));
+    }
+
+    @Test
+    @Order(2)
+    public void testRestoredSnapshotIsNotTrusted() {
+        AirZoneApiManager apiManager = new AirZoneApiManager(new AirZoneBridgeConfiguration());
+        String snapshot = "{\"zones\":{\"systems\":[{\"data\":[{\"systemID\":1,\"zoneID\":1,\"on\":1,"
+                + "\"setpoint\":21.0}]}]}}";
+
+        // even a snapshot saved a second ago may miss a change made on the wall panel since
+        assertTrue(apiManager.importSnapshot(snapshot, Instant.now().minusSeconds(1)));
+        assertNotNull(apiManager.getZone(1, 1));
+        assertTrue(apiManager.isSnapshotStale());
+        assertFalse(apiManager.isSystemStateFresh(1));
+    }
+
+    @Test
+    @Order(3)
+    public void testWireValueInZoneUnit() {
+        AirZoneHvacZone celsiusZone = zone("\"units\":0");
+        AirZoneHvacZone fahrenheitZone = zone("\"units\":1");
+
+        assertEquals(10.0, AirZoneApiManager.getWireValue(new QuantityType<>(50, ImperialUnits.FAHRENHEIT), celsiusZone)
+                .getAsDouble(), DELTA);
+        assertEquals(50.0, AirZoneApiManager.getWireValue(new QuantityType<>(10, SIUnits.CELSIUS), fahrenheitZone)
+                .getAsDouble(), DELTA);
+        assertEquals(21.5, AirZoneApiManager.getWireValue(new QuantityType<>(21.5, SIUnits.CELSIUS), celsiusZone)
+                .getAsDouble(), DELTA);
+
+        // without a known zone, or for a plain number, the value is sent as it is
+        assertEquals(10.0,
+                AirZoneApiManager.getWireValue(new QuantityType<>(10, SIUnits.CELSIUS), null).getAsDouble(), DELTA);
+        assertEquals(21.5, AirZoneApiManager.getWireValue(new DecimalType(21.5), fahrenheitZone).getAsDouble(), DELTA);
+
+        assertEquals(1, AirZoneApiManager.getWireValue(OnOffType.ON, celsiusZone).getAsInt());
+        assertEquals(0, AirZoneApiManager.getWireValue(OnOffType.OFF, celsiusZone).getAsInt());
+        assertEquals("Living room",
+                AirZoneApiManager.getWireValue(new StringType("Living room"), celsiusZone).getAsString());
+    }
+
+    @Test
+    @Order(4)
+    public void testCurrentValue() {
+        AirZoneHvacZone zone = zone("\"on\":1,\"mode\":3,\"setpoint\":21.5,\"name\":\"Living room\"");
+
+        assertTrue(AirZoneApiManager.isCurrentValue(zone, "setpoint", new JsonPrimitive(21.5)));
+        assertFalse(AirZoneApiManager.isCurrentValue(zone, "setpoint", new JsonPrimitive(22.0)));
+        // an integer field compared with the double a DecimalType command gives
+        assertTrue(AirZoneApiManager.isCurrentValue(zone, "mode",
+                AirZoneApiManager.getWireValue(new DecimalType(3), zone)));
+        assertTrue(AirZoneApiManager.isCurrentValue(zone, "on", AirZoneApiManager.getWireValue(OnOffType.ON, zone)));
+        assertFalse(AirZoneApiManager.isCurrentValue(zone, "on", AirZoneApiManager.getWireValue(OnOffType.OFF, zone)));
+        assertTrue(AirZoneApiManager.isCurrentValue(zone, "name", new JsonPrimitive("Living room")));
+        assertFalse(AirZoneApiManager.isCurrentValue(zone, "name", new JsonPrimitive("Kitchen")));
+
+        // a field the zone did not report is never assumed to have the value
+        assertFalse(AirZoneApiManager.isCurrentValue(zone, "aq_mode", new JsonPrimitive(0)));
+    }
+
+    @Test
+    @Order(5)
+    public void testCurrentValueAfterStepRounding() {
+        AirZoneHvacZone zone = zone("\"units\":1,\"temp_step\":1.0,\"setpoint\":72.0,\"minTemp\":59.0,"
+                + "\"maxTemp\":86.0");
+        QuantityType<?> command = new QuantityType<>(22, SIUnits.CELSIUS);
+
+        // 22 C is 71.6 F, which the zone would round to the 72 F it already has
+        assertFalse(AirZoneApiManager.isCurrentValue(zone, "setpoint", AirZoneApiManager.getWireValue(command, zone)));
+        Double value = AirZoneApiManager.getSetpointWireValue(command, zone, "setpoint",
+                AirZoneBridgeConfiguration.SETPOINT_POLICY_CLAMP);
+        assertNotNull(value);
+        assertEquals(72.0, value, DELTA);
+        assertTrue(AirZoneApiManager.isCurrentValue(zone, "setpoint", new JsonPrimitive(value)));
+
+        AirZoneHvacZone halfStepZone = zone("\"units\":0,\"temp_step\":0.5,\"setpoint\":21.5,\"minTemp\":15.0,"
+                + "\"maxTemp\":30.0");
+        assertEquals(21.5, AirZoneApiManager.getSetpointWireValue(new DecimalType(21.3), halfStepZone, "setpoint",
+                AirZoneBridgeConfiguration.SETPOINT_POLICY_CLAMP), DELTA);
+        assertEquals(21.0, AirZoneApiManager.getSetpointWireValue(new DecimalType(21.2), halfStepZone, "setpoint",
+                AirZoneBridgeConfiguration.SETPOINT_POLICY_CLAMP), DELTA);
+    }
+}
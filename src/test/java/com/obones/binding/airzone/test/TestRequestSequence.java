@@ -0,0 +1,238 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.thing.ChannelUID;
+import org.openhab.core.thing.Thing;
+import org.openhab.core.thing.ThingTypeUID;
+import org.openhab.core.thing.binding.builder.ThingBuilder;
+import org.openhab.core.types.Command;
+import org.openhab.core.types.State;
+
+import com.obones.binding.airzone.internal.api.AirZoneApiManager;
+import com.obones.binding.airzone.internal.api.AirZoneRequestSequence;
+import com.obones.binding.airzone.internal.config.AirZoneBridgeConfiguration;
+import com.obones.binding.airzone.internal.handler.AirZoneBaseThingHandler;
+import com.obones.binding.airzone.internal.handler.AirZoneBridgeHandler;
+import com.obones.binding.airzone.internal.jfr.AirZoneCommandEvent;
+import com.obones.binding.airzone.internal.utils.Localization;
+
+/**
+ * JUnit test suite for the request sequence numbers
+ *
+ * @author Olivier Sannier - Initial contribution.
+ */
+@NonNullByDefault
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class TestRequestSequence {
+    private static final String SETPOINT = "zone1#setpoint";
+    private static final String MODE = "zone1#mode";
+
+    private static final long MAX_WAIT_MSECS = 1000;
+
+    /**
+     * A thing handler that publishes its channel states to a list, and takes its request sequence from a manager
+     * rather than from a bridge.
+     */
+    private static class RecordingThingHandler extends AirZoneBaseThingHandler {
+        private final AirZoneApiManager apiManager;
+        private final List<State> publishedStates = new ArrayList<>();
+        private final List<String> commandStages = new ArrayList<>();
+
+        RecordingThingHandler(AirZoneApiManager apiManager) {
+            super(createThing(), Localization.UNKNOWN);
+            this.apiManager = apiManager;
+        }
+
+        private static Thing createThing() {
+            return ThingBuilder.create(new ThingTypeUID("airzone", "zone"), "test").build();
+        }
+
+        public void command(ChannelUID channelUID, Command command) {
+            processCommand(channelUID, command, 0, System.nanoTime(), apiManager);
+        }
+
+        public void snapshot(ChannelUID channelUID, State state, long snapshotSequence) {
+            updateChannelState(channelUID, state, snapshotSequence);
+        }
+
+        public List<State> getPublishedStates() {
+            return publishedStates;
+        }
+
+        public List<String> getCommandStages() {
+            return commandStages;
+        }
+
+        @Override
+        protected void recordCommandStage(long commandId, ChannelUID channelUID, Command command, String stage,
+                long commandNanos) {
+            commandStages.add(channelUID.getId() + "=" + stage);
+        }
+
+        @Override
+        protected @Nullable AirZoneRequestSequence getRequestSequence() {
+            return apiManager.getRequestSequence();
+        }
+
+        @Override
+        protected void updateState(ChannelUID channelUID, State state) {
+            publishedStates.add(state);
+        }
+
+        @Override
+        protected void initializeProperties(AirZoneBridgeHandler bridgeHandler) {
+        }
+
+        @Override
+        protected void createOptionalChannels(AirZoneBridgeHandler bridgeHandler) {
+        }
+
+        @Override
+        protected CommandResult handleActionCommand(ChannelUID channelUID, Command command,
+                AirZoneApiManager apiManager) {
+            return CommandResult.SENT;
+        }
+
+        @Override
+        public boolean refreshChannel(ChannelUID channelUID, AirZoneApiManager apiManager) {
+            return false;
+        }
+
+        @Override
+        public void refreshChannelsAndProperties(AirZoneApiManager apiManager, Set<ChannelUID> linkedChannelsUIDs) {
+        }
+    }
+
+    @Test
+    @Order(1)
+    public void testPollIssuedBeforeCommandIsStale()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        AirZoneRequestSequence requestSequence = new AirZoneRequestSequence();
+        CountDownLatch pollIssued = new CountDownLatch(1);
+        CountDownLatch commandSent = new CountDownLatch(1);
+        ExecutorService poller = Executors.newSingleThreadExecutor();
+
+        try {
+            // the poll is issued, then the command is sent while the poll response is still on its way
+            Future<Long> pollSequence = poller.submit(() -> {
+                long sequence = requestSequence.issue();
+                pollIssued.countDown();
+                commandSent.await();
+                return sequence;
+            });
+
+            assertTrue(pollIssued.await(MAX_WAIT_MSECS, TimeUnit.MILLISECONDS));
+            long commandSequence = requestSequence.issue();
+            requestSequence.commandSent(SETPOINT, commandSequence);
+            commandSent.countDown();
+
+            long snapshotSequence = pollSequence.get(MAX_WAIT_MSECS, TimeUnit.MILLISECONDS);
+            assertTrue(snapshotSequence < commandSequence);
+            assertFalse(requestSequence.isSnapshotCurrent(SETPOINT, snapshotSequence),
+                    "a poll issued before the command overwrote the commanded value");
+            assertTrue(requestSequence.isSnapshotCurrent(MODE, snapshotSequence),
+                    "a command on another field must not block the snapshot");
+        } finally {
+            poller.shutdownNow();
+        }
+
+        // a poll issued after the command is applied
+        assertTrue(requestSequence.isSnapshotCurrent(SETPOINT, requestSequence.issue()));
+    }
+
+    @Test
+    @Order(2)
+    public void testCommandsRecordedOutOfOrderKeepTheLatest() {
+        AirZoneRequestSequence requestSequence = new AirZoneRequestSequence();
+        long first = requestSequence.issue();
+        long second = requestSequence.issue();
+        long poll = requestSequence.issue();
+
+        requestSequence.commandSent(SETPOINT, second);
+        requestSequence.commandSent(SETPOINT, first);
+
+        assertFalse(requestSequence.isSnapshotCurrent(SETPOINT, second));
+        assertTrue(requestSequence.isSnapshotCurrent(SETPOINT, poll));
+        assertEquals(poll, requestSequence.getLatestIssued());
+    }
+
+    @Test
+    @Order(3)
+    public void testHandlerIgnoresSnapshotIssuedBeforeCommand() {
+        AirZoneApiManager apiManager = new AirZoneApiManager(new AirZoneBridgeConfiguration());
+        AirZoneRequestSequence requestSequence = apiManager.getRequestSequence();
+        RecordingThingHandler handler = new RecordingThingHandler(apiManager);
+        ChannelUID setpoint = new ChannelUID(handler.getThing().getUID(), "setpoint");
+        ChannelUID mode = new ChannelUID(handler.getThing().getUID(), "mode");
+
+        // the poll is issued, the command goes through the handler, then the poll returns the previous value
+        long staleSequence = requestSequence.issue();
+        handler.command(setpoint, new DecimalType(22));
+        handler.snapshot(setpoint, new DecimalType(20), staleSequence);
+        handler.snapshot(mode, new DecimalType(1), staleSequence);
+        assertEquals(List.of(new DecimalType(1)), handler.getPublishedStates(),
+                "a snapshot issued before the command overwrote the commanded value");
+
+        // the next poll reports the commanded value
+        handler.snapshot(setpoint, new DecimalType(22), requestSequence.issue());
+        assertEquals(List.of(new DecimalType(1), new DecimalType(22)), handler.getPublishedStates());
+    }
+
+    @Test
+    @Order(4)
+    public void testFirstSnapshotAfterCommandConfirmsIt() {
+        AirZoneApiManager apiManager = new AirZoneApiManager(new AirZoneBridgeConfiguration());
+        AirZoneRequestSequence requestSequence = apiManager.getRequestSequence();
+        RecordingThingHandler handler = new RecordingThingHandler(apiManager);
+        ChannelUID setpoint = new ChannelUID(handler.getThing().getUID(), "setpoint");
+        ChannelUID mode = new ChannelUID(handler.getThing().getUID(), "mode");
+
+        // a snapshot issued before the command neither confirms nor contradicts it
+        long staleSequence = requestSequence.issue();
+        handler.command(setpoint, new DecimalType(22));
+        handler.command(mode, new DecimalType(3));
+        handler.snapshot(setpoint, new DecimalType(20), staleSequence);
+        assertEquals(List.of(), handler.getCommandStages());
+
+        long snapshotSequence = requestSequence.issue();
+        handler.snapshot(setpoint, new DecimalType(22), snapshotSequence);
+        handler.snapshot(mode, new DecimalType(2), snapshotSequence);
+        assertEquals(List.of("setpoint=" + AirZoneCommandEvent.STAGE_CONFIRMED,
+                "mode=" + AirZoneCommandEvent.STAGE_REVERTED), handler.getCommandStages());
+
+        // only the first snapshot after the command tells
+        handler.snapshot(setpoint, new DecimalType(21), requestSequence.issue());
+        assertEquals(2, handler.getCommandStages().size());
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.library.unit.SIUnits;
+import org.openhab.core.types.Command;
+
+import com.google.gson.Gson;
+import com.obones.binding.airzone.internal.api.AirZoneApiManager;
+import com.obones.binding.airzone.internal.api.model.AirZoneHvacZone;
+import com.obones.binding.airzone.internal.config.AirZoneBridgeConfiguration;
+
+/**
+ * JUnit test suite for the rounding and range checking of the setpoints sent to the zones
+ *
+ * @author Olivier Sannier - Initial contribution.
+ */
+@NonNullByDefault
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class TestSetpointPolicy {
+    private static final double DELTA = 0.0001;
+
+    private static final AirZoneHvacZone CELSIUS_ZONE = zone(
+            "\"units\":0,\"temp_step\":0.5,\"minTemp\":15.0,\"maxTemp\":30.0");
+    private static final AirZoneHvacZone FAHRENHEIT_ZONE = zone(
+            "\"units\":1,\"temp_step\":1.0,\"minTemp\":59.0,\"maxTemp\":86.0");
+    private static final AirZoneHvacZone DOUBLE_SETPOINT_ZONE = zone("\"units\":0,\"temp_step\":0.5,\"double_sp\":1,"
+            + "\"coolmintemp\":18.0,\"coolmaxtemp\":30.0,\"heatmintemp\":15.0,\"heatmaxtemp\":25.0");
+
+    private static AirZoneHvacZone zone(String fields) {
+        return new Gson().fromJson("{\"systemID\":1,\"zoneID\":1," + fields + "}", AirZoneHvacZone.class);
+    }
+
+    private static @Nullable Double clamp(Command command, AirZoneHvacZone zone, String fieldName) {
+        return AirZoneApiManager.getSetpointWireValue(command, zone, fieldName,
+                AirZoneBridgeConfiguration.SETPOINT_POLICY_CLAMP);
+    }
+
+    private static @Nullable Double reject(Command command, AirZoneHvacZone zone, String fieldName) {
+        return AirZoneApiManager.getSetpointWireValue(command, zone, fieldName,
+                AirZoneBridgeConfiguration.SETPOINT_POLICY_REJECT);
+    }
+
+    @Test
+    @Order(1)
+    public void testStepRounding() {
+        assertEquals(21.5, clamp(new DecimalType(21.3), CELSIUS_ZONE, "setpoint"), DELTA);
+        assertEquals(21.0, clamp(new DecimalType(21.2), CELSIUS_ZONE, "setpoint"), DELTA);
+        assertEquals(21.5, clamp(new DecimalType(21.25), CELSIUS_ZONE, "setpoint"), DELTA);
+        assertEquals(71.0, clamp(new DecimalType(70.6), FAHRENHEIT_ZONE, "setpoint"), DELTA);
+
+        // a zone that does not give its step gets the value as it is
+        assertEquals(21.3, clamp(new DecimalType(21.3), zone("\"minTemp\":15.0,\"maxTemp\":30.0"), "setpoint"),
+                DELTA);
+        // and nothing is rounded without a policy
+        assertEquals(21.3, AirZoneApiManager.getSetpointWireValue(new DecimalType(21.3), CELSIUS_ZONE, "setpoint",
+                AirZoneBridgeConfiguration.SETPOINT_POLICY_NONE), DELTA);
+    }
+
+    @Test
+    @Order(2)
+    public void testClamp() {
+        assertEquals(30.0, clamp(new DecimalType(35), CELSIUS_ZONE, "setpoint"), DELTA);
+        assertEquals(15.0, clamp(new DecimalType(10), CELSIUS_ZONE, "setpoint"), DELTA);
+        assertEquals(30.0, clamp(new DecimalType(30), CELSIUS_ZONE, "setpoint"), DELTA);
+
+        // a zone that does not give its limits is sent any value
+        assertEquals(40.0, clamp(new DecimalType(40), zone("\"units\":0"), "setpoint"), DELTA);
+        assertEquals(40.0, AirZoneApiManager.getSetpointWireValue(new DecimalType(40), CELSIUS_ZONE, "setpoint",
+                AirZoneBridgeConfiguration.SETPOINT_POLICY_NONE), DELTA);
+    }
+
+    @Test
+    @Order(3)
+    public void testReject() {
+        assertNull(reject(new DecimalType(35), CELSIUS_ZONE, "setpoint"));
+        assertNull(reject(new DecimalType(14.5), CELSIUS_ZONE, "setpoint"));
+        assertEquals(22.0, reject(new DecimalType(22), CELSIUS_ZONE, "setpoint"), DELTA);
+
+        // the value is rounded to the step before it is checked against the range
+        assertEquals(30.0, reject(new DecimalType(30.2), CELSIUS_ZONE, "setpoint"), DELTA);
+        assertNull(reject(new DecimalType(30.3), CELSIUS_ZONE, "setpoint"));
+    }
+
+    @Test
+    @Order(4)
+    public void testFahrenheitZone() {
+        // 20 C is 68 F, 35 C is 95 F and 10 C is 50 F
+        assertEquals(68.0, clamp(new QuantityType<>(20, SIUnits.CELSIUS), FAHRENHEIT_ZONE, "setpoint"), DELTA);
+        assertEquals(86.0, clamp(new QuantityType<>(35, SIUnits.CELSIUS), FAHRENHEIT_ZONE, "setpoint"), DELTA);
+        assertEquals(59.0, clamp(new QuantityType<>(10, SIUnits.CELSIUS), FAHRENHEIT_ZONE, "setpoint"), DELTA);
+        assertNull(reject(new QuantityType<>(35, SIUnits.CELSIUS), FAHRENHEIT_ZONE, "setpoint"));
+
+        // the limits of the zone are in its own unit, a plain number is taken as such
+        assertEquals(80.0, reject(new DecimalType(80), FAHRENHEIT_ZONE, "setpoint"), DELTA);
+    }
+
+    @Test
+    @Order(5)
+    public void testDoubleSetpointZone() {
+        assertEquals(15.0, AirZoneApiManager.getSetpointMinimum(DOUBLE_SETPOINT_ZONE, "heatsetpoint"), DELTA);
+        assertEquals(25.0, AirZoneApiManager.getSetpointMaximum(DOUBLE_SETPOINT_ZONE, "heatsetpoint"), DELTA);
+        assertEquals(18.0, AirZoneApiManager.getSetpointMinimum(DOUBLE_SETPOINT_ZONE, "coolsetpoint"), DELTA);
+        assertEquals(30.0, AirZoneApiManager.getSetpointMaximum(DOUBLE_SETPOINT_ZONE, "coolsetpoint"), DELTA);
+
+        // each setpoint has its own range
+        assertEquals(25.0, clamp(new DecimalType(28), DOUBLE_SETPOINT_ZONE, "heatsetpoint"), DELTA);
+        assertEquals(28.0, clamp(new DecimalType(28), DOUBLE_SETPOINT_ZONE, "coolsetpoint"), DELTA);
+        assertEquals(18.0, clamp(new DecimalType(16), DOUBLE_SETPOINT_ZONE, "coolsetpoint"), DELTA);
+        assertEquals(16.0, clamp(new DecimalType(16), DOUBLE_SETPOINT_ZONE, "heatsetpoint"), DELTA);
+
+        assertNull(reject(new DecimalType(28), DOUBLE_SETPOINT_ZONE, "heatsetpoint"));
+        assertEquals(28.0, reject(new DecimalType(28), DOUBLE_SETPOINT_ZONE, "coolsetpoint"), DELTA);
+        assertNull(reject(new DecimalType(16), DOUBLE_SETPOINT_ZONE, "coolsetpoint"));
+    }
+}
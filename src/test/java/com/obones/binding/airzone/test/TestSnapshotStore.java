@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2023-2024 Olivier Sannier
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file,
+ * you can obtain one at https://mozilla.org/MPL/2.0/.
+ *
+ * SPDX-License-Identifier: MPL-2.0
+ */
+package com.obones.binding.airzone.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.openhab.core.thing.ThingUID;
+
+import com.obones.binding.airzone.internal.utils.SnapshotStore;
+
+/**
+ * JUnit test suite for the persistence of the bridge state between restarts
+ *
+ * @author Olivier Sannier - Initial contribution.
+ */
+@NonNullByDefault
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class TestSnapshotStore {
+    private static final ThingUID BRIDGE_UID = new ThingUID("airzone:airzone:home");
+    private static final String SNAPSHOT = "{\"zones\":{\"systems\":[{\"data\":[{\"systemID\":1,\"zoneID\":2}]}]}}";
+
+    @Test
+    @Order(1)
+    public void testSnapshotSurvivesRestart() throws IOException {
+        Path folder = Files.createTempDirectory("airzone");
+        try {
+            SnapshotStore store = new SnapshotStore(folder, BRIDGE_UID);
+            assertNull(store.load());
+            assertTrue(store.save(SNAPSHOT));
+            assertFalse(store.save(SNAPSHOT), "an unchanged snapshot must not be written again");
+
+            // a new store, just like after a restart
+            SnapshotStore restarted = new SnapshotStore(folder, BRIDGE_UID);
+            assertEquals(SNAPSHOT, restarted.load());
+            assertFalse(restarted.save(SNAPSHOT));
+
+            try (var files = Files.list(folder)) {
+                assertEquals(1L, files.count(), "no temporary file must be left behind");
+            }
+
+            restarted.delete();
+            assertNull(new SnapshotStore(folder, BRIDGE_UID).load());
+        } finally {
+            try (var files = Files.list(folder)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(folder);
+        }
+    }
+}